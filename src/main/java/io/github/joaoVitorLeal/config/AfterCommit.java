@@ -0,0 +1,27 @@
+package io.github.joaoVitorLeal.config;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers work on in-memory state (caches, indexes, counters) until the current transaction commits, so a
+ * rolled back write leaves that state untouched and a concurrent read cannot repopulate it with the old row
+ * before the commit. Outside of a transaction the work runs right away.
+ */
+public final class AfterCommit {
+
+	private AfterCommit() {}
+
+	public static void run(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+}
@@ -0,0 +1,72 @@
+package io.github.joaoVitorLeal.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.github.joaoVitorLeal.config.ReplicaRoutingDataSource.Selection;
+
+/**
+ * Wraps the auto-configured connection pool in a {@link LazyConnectionDataSourceProxy}: beginning a transaction
+ * no longer borrows a pooled connection, only the first SQL statement does. Requests answered from a cache or
+ * rejected before any query run without a connection, and the pool is held only for the time the queries need.
+ *
+ * When datasource.replicas.urls lists read replicas, the proxy is a {@link ReplicaRoutingDataSource} instead.
+ * Each replica gets its own pool, configured like the primary one (credentials included) except for its url
+ * and connection timeout.
+ */
+@Configuration
+public class DataSourceConfig {
+	
+	@Bean
+	public static BeanPostProcessor lazyConnectionDataSourcePostProcessor(
+			@Value("${datasource.replicas.urls:}") List<String> replicaUrls,
+			@Value("${datasource.replicas.selection:round-robin}") Selection selection,
+			@Value("${datasource.replicas.connection-timeout:1s}") Duration connectionTimeout,
+			@Value("${datasource.replicas.retry-interval:30s}") Duration retryInterval) {
+		return new DestructionAwareBeanPostProcessor() {
+			
+			private final List<HikariDataSource> replicas = new ArrayList<>();
+			
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!(bean instanceof HikariDataSource primary) || !"dataSource".equals(beanName)) {
+					return bean;
+				}
+				for (String url : replicaUrls) {
+					if (url.isBlank()) {
+						continue;
+					}
+					HikariDataSource replica = new HikariDataSource();
+					primary.copyStateTo(replica);
+					replica.setJdbcUrl(url.strip());
+					replica.setPoolName("replica-" + (replicas.size() + 1));
+					// Fail over to the next replica quickly instead of waiting as long as for the primary
+					replica.setConnectionTimeout(connectionTimeout.toMillis());
+					// Connect lazily and keep retrying: a replica that is down is skipped, it must not fail the first read
+					replica.setInitializationFailTimeout(-1);
+					replicas.add(replica);
+				}
+				return replicas.isEmpty() ? new LazyConnectionDataSourceProxy(primary)
+						: new ReplicaRoutingDataSource(primary, replicas, selection, retryInterval);
+			}
+			
+			// The container destroys the pool it created, not the proxy that replaced it, so the replicas are closed with it
+			@Override
+			public void postProcessBeforeDestruction(Object bean, String beanName) {
+				if ("dataSource".equals(beanName)) {
+					replicas.forEach(HikariDataSource::close);
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,43 @@
+package io.github.joaoVitorLeal.config;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * Infrastructure of the reactive stack.
+ * <p>
+ * Spring Boot skips the JDBC DataSource as soon as an R2DBC ConnectionFactory exists, but JPA is still needed
+ * for the batch endpoints and the change log poller, so the DataSource is declared here from the usual
+ * spring.datasource.* properties. The R2DBC transaction manager is not registered as a bean: next to the
+ * JPA one it would make every {@code @Transactional} of the servlet stack ambiguous.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+	
+	@Bean
+	@ConfigurationProperties("spring.datasource")
+	public DataSourceProperties dataSourceProperties() {
+		return new DataSourceProperties();
+	}
+	
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource dataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+	
+	@Bean
+	public TransactionalOperator reactiveTransactionalOperator(ConnectionFactory connectionFactory) {
+		return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+	}
+}
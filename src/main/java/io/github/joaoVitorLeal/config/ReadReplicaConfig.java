@@ -0,0 +1,77 @@
+package io.github.joaoVitorLeal.config;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.github.joaoVitorLeal.config.ReplicaRoutingDataSource.Scope;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Read/write splitting, active when datasource.replicas.urls lists at least one replica.
+ * The DataSource is then a {@link ReplicaRoutingDataSource}, see {@link DataSourceConfig}.
+ */
+@Configuration
+@ConditionalOnExpression("!'${datasource.replicas.urls:}'.isBlank()")
+public class ReadReplicaConfig {
+	
+	// Set on the responses to writes, while it is present the client's reads go to the primary
+	static final String READ_YOUR_WRITES_COOKIE = "read-primary";
+	
+	// Replica pools are not beans, so Spring Boot does not publish their metrics (hikaricp.*) as it does for the primary
+	@Bean
+	public MeterBinder replicaPoolMetrics(DataSource dataSource) {
+		return registry -> {
+			if (dataSource instanceof ReplicaRoutingDataSource routing) {
+				routing.getReplicas().forEach(replica -> replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+			}
+		};
+	}
+	
+	/**
+	 * Binds each request to one replica, or to the primary for a while after the client wrote (read-your-writes).
+	 */
+	@Bean
+	@ConditionalOnWebApplication(type = Type.SERVLET)
+	public OncePerRequestFilter replicaRoutingFilter(
+			@Value("${datasource.replicas.read-your-writes-window:5s}") Duration readYourWritesWindow) {
+		return new OncePerRequestFilter() {
+			@Override
+			protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+					throws ServletException, IOException {
+				boolean write = !HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod());
+				if (write && !readYourWritesWindow.isZero()) {
+					ResponseCookie cookie = ResponseCookie.from(READ_YOUR_WRITES_COOKIE, "1")
+							.path("/")
+							.httpOnly(true)
+							.maxAge(readYourWritesWindow)
+							.build();
+					response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+				}
+				boolean primaryOnly = write || WebUtils.getCookie(request, READ_YOUR_WRITES_COOKIE) != null;
+				try (Scope scope = ReplicaRoutingDataSource.bind(primaryOnly)) {
+					chain.doFilter(request, response);
+				}
+			}
+		};
+	}
+}
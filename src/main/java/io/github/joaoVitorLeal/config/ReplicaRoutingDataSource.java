@@ -0,0 +1,165 @@
+package io.github.joaoVitorLeal.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Sends the connections of read-only transactions ({@code @Transactional(readOnly = true)}) to a read replica,
+ * and every other connection to the primary.
+ *
+ * The physical connection is only fetched when the first statement runs, once the transaction has marked it
+ * read-only (see {@link LazyConnectionDataSourceProxy}). A replica that fails to hand out a connection is skipped
+ * for the retry interval; when no replica is available, reads fall back to the primary.
+ *
+ * Inside a {@link #bind(boolean) bound} scope, typically one HTTP request, every read-only transaction uses the
+ * same replica, so a version read before a query is never newer than the rows the query returns. A scope bound
+ * to the primary serves a client its own writes while the replicas may still lag behind them.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy {
+	
+	public enum Selection {
+		ROUND_ROBIN,
+		LEAST_CONNECTIONS
+	}
+	
+	private static final Logger logger = Logger.getLogger(ReplicaRoutingDataSource.class.getName());
+	
+	private static final ThreadLocal<Scope> currentScope = new ThreadLocal<>();
+	
+	private final HikariDataSource primary;
+	private final List<HikariDataSource> replicas;
+	private final Selection selection;
+	private final long retryIntervalNanos;
+	
+	private final AtomicInteger nextReplica = new AtomicInteger();
+	// System.nanoTime() until which each replica is skipped after a failure, 0 while it is healthy
+	private final AtomicLongArray unavailableUntil;
+	
+	public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Selection selection,
+			Duration retryInterval) {
+		super(primary);
+		this.primary = primary;
+		this.replicas = List.copyOf(replicas);
+		this.selection = selection;
+		this.retryIntervalNanos = retryInterval.toNanos();
+		this.unavailableUntil = new AtomicLongArray(replicas.size());
+		setReadOnlyDataSource(new ReplicaDataSource());
+	}
+	
+	/**
+	 * Binds the read-only connections of the current thread to a single data source until the scope is closed.
+	 *
+	 * @param primaryOnly true to read from the primary, e.g. right after the client wrote
+	 */
+	public static Scope bind(boolean primaryOnly) {
+		Scope scope = new Scope(primaryOnly);
+		currentScope.set(scope);
+		return scope;
+	}
+	
+	public List<HikariDataSource> getReplicas() {
+		return replicas;
+	}
+	
+	private Connection getReadOnlyConnection() throws SQLException {
+		Scope scope = currentScope.get();
+		if (scope != null && scope.primaryOnly) {
+			return primary.getConnection();
+		}
+		if (scope != null && scope.replica >= 0 && isAvailable(scope.replica)) {
+			try {
+				return replicas.get(scope.replica).getConnection();
+			} catch (SQLException e) {
+				markUnavailable(scope.replica, e);
+			}
+		}
+		for (int replica : candidates()) {
+			try {
+				Connection connection = replicas.get(replica).getConnection();
+				if (scope != null) {
+					scope.replica = replica;
+				}
+				return connection;
+			} catch (SQLException e) {
+				markUnavailable(replica, e);
+			}
+		}
+		return primary.getConnection();
+	}
+	
+	// Available replicas in the order they should be tried
+	private int[] candidates() {
+		IntStream available = switch (selection) {
+			case ROUND_ROBIN -> {
+				int first = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+				yield IntStream.range(0, replicas.size()).map(i -> (first + i) % replicas.size());
+			}
+			case LEAST_CONNECTIONS -> IntStream.range(0, replicas.size()).boxed()
+					.sorted(Comparator.comparingInt(this::activeConnections))
+					.mapToInt(Integer::intValue);
+		};
+		return available.filter(this::isAvailable).toArray();
+	}
+	
+	private int activeConnections(int replica) {
+		HikariPoolMXBean pool = replicas.get(replica).getHikariPoolMXBean();
+		return pool == null ? 0 : pool.getActiveConnections(); // the pool starts with its first connection
+	}
+	
+	private boolean isAvailable(int replica) {
+		long until = unavailableUntil.get(replica);
+		return until == 0 || System.nanoTime() - until >= 0;
+	}
+	
+	private void markUnavailable(int replica, SQLException e) {
+		unavailableUntil.set(replica, System.nanoTime() + retryIntervalNanos);
+		logger.warning("Read replica " + replicas.get(replica).getPoolName() + " is unavailable, retrying it in "
+				+ Duration.ofNanos(retryIntervalNanos).toSeconds() + " s: " + e.getMessage());
+	}
+	
+	/**
+	 * Routing of the read-only connections of one thread, see {@link ReplicaRoutingDataSource#bind(boolean)}.
+	 */
+	public static final class Scope implements AutoCloseable {
+		
+		private final boolean primaryOnly;
+		private int replica = -1;
+		
+		private Scope(boolean primaryOnly) {
+			this.primaryOnly = primaryOnly;
+		}
+		
+		@Override
+		public void close() {
+			currentScope.remove();
+		}
+	}
+	
+	private final class ReplicaDataSource extends AbstractDataSource {
+		
+		@Override
+		public Connection getConnection() throws SQLException {
+			return getReadOnlyConnection();
+		}
+		
+		// The replica pools are configured with their own credentials, so a connection for other credentials is 
+		// asked of the primary, the same data source the read-write connections for those credentials come from
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return primary.getConnection(username, password);
+		}
+	}
+}
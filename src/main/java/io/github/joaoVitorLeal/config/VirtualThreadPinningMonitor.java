@@ -0,0 +1,85 @@
+package io.github.joaoVitorLeal.config;
+
+import java.time.Duration;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread (JFR event jdk.VirtualThreadPinned),
+ * e.g. I/O inside a synchronized block of a JDBC driver or a cache loader. A pinned carrier cannot run other
+ * virtual threads, so a few of them blocking on a slow database stall every request.
+ * Each event is logged with the top of its stack and counted as jvm.threads.virtual.pinned.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+	
+	private static final Logger logger = Logger.getLogger(VirtualThreadPinningMonitor.class.getName());
+	
+	private static final int STACK_DEPTH = 8;
+	
+	private final Duration threshold;
+	private final Counter pinnedCounter;
+	private volatile RecordingStream recording;
+	
+	public VirtualThreadPinningMonitor(ObjectProvider<MeterRegistry> meterRegistry,
+			@Value("${diagnostics.virtual-threads.pinned-threshold:20ms}") Duration threshold) {
+		this.threshold = threshold;
+		MeterRegistry registry = meterRegistry.getIfAvailable();
+		this.pinnedCounter = registry == null ? null
+				: Counter.builder("jvm.threads.virtual.pinned")
+					.description("Virtual threads blocked while pinned to their carrier for longer than the threshold")
+					.register(registry);
+	}
+	
+	@Override
+	public void start() {
+		recording = new RecordingStream();
+		recording.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+		recording.onEvent("jdk.VirtualThreadPinned", this::report);
+		recording.startAsync();
+		logger.info("Monitoring virtual threads pinned for longer than " + threshold.toMillis() + " ms.");
+	}
+	
+	@Override
+	public void stop() {
+		if (recording != null) {
+			recording.close();
+			recording = null;
+		}
+	}
+	
+	@Override
+	public boolean isRunning() {
+		return recording != null;
+	}
+	
+	private void report(RecordedEvent event) {
+		if (pinnedCounter != null) {
+			pinnedCounter.increment();
+		}
+		String stack = event.getStackTrace() == null ? "no stack trace"
+				: event.getStackTrace().getFrames().stream()
+					.limit(STACK_DEPTH)
+					.map(VirtualThreadPinningMonitor::format)
+					.collect(Collectors.joining("\n\tat ", "\tat ", ""));
+		logger.warning("Virtual thread pinned for " + event.getDuration().toMillis() + " ms:\n" + stack);
+	}
+	
+	private static String format(RecordedFrame frame) {
+		return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+	}
+}
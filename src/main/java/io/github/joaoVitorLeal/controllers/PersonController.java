@@ -1,73 +1,331 @@
 package io.github.joaoVitorLeal.controllers;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.github.joaoVitorLeal.dto.PersonBatchResult;
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.dto.PersonFilter;
+import io.github.joaoVitorLeal.dto.PersonLookup;
+import io.github.joaoVitorLeal.dto.PersonPage;
+import io.github.joaoVitorLeal.dto.PersonStats;
+import io.github.joaoVitorLeal.dto.PersonSuggestion;
+import io.github.joaoVitorLeal.exceptions.PreconditionFailedException;
 import io.github.joaoVitorLeal.model.Person;
 import io.github.joaoVitorLeal.services.PersonService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
 @RestController
 @RequestMapping("/person")
+@Profile("!reactive") // Replaced by the WebFlux variant in the "reactive" profile
 public class PersonController {
 	
+	public static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+	
 	private final PersonService service;
+	private final ObjectMapper mapper;
+	private final ObjectWriter exportWriter;
 	
-	public PersonController(PersonService service) {
+	public PersonController(PersonService service, ObjectMapper mapper) {
 		this.service = service;
+		this.mapper = mapper;
+		// Let the servlet buffer decide when to flush instead of flushing after every row
+		this.exportWriter = mapper.writerFor(PersonDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
 	}
 	
+	/**
+	 * Supports conditional requests: the ETag is the row version, so a matching If-None-Match 
+	 * is answered with 304 from the cached person, without serializing it.
+	 */
 	@GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<Person> findById(@PathVariable Long id) {
-		try {
-			return ResponseEntity.ok(service.findById(id)) ;			
-		} catch (Exception e) {
-			return ResponseEntity.notFound().build();
+	public ResponseEntity<PersonDTO> findById(@PathVariable Long id, WebRequest request) {
+		// A missing person is answered with 404 by the exception handler, which counts it in person.errors
+		if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+				&& request.checkNotModified(Objects.toString(service.findVersionById(id), null))) {
+			return null; // 304 Not Modified, status and ETag already set
 		}
+		PersonDTO person = service.findById(id);
+		return ResponseEntity.ok()
+				.eTag(Objects.toString(person.version(), null))
+				.body(person);
+	}
+	
+	/**
+	 * Sparse fieldset variant, e.g. {@code ?fields=firstName,lastName}: only the requested columns 
+	 * (plus the id) are selected and returned. Not conditional, since the row version is not selected.
+	 */
+	@GetMapping(value = "/{id}", params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Map<String, Object> findById(@PathVariable Long id, @RequestParam String fields) {
+		return service.findById(id, fields);
+	}
+	
+	@GetMapping(params = "email", produces = MediaType.APPLICATION_JSON_VALUE)
+	public PersonDTO findByEmail(@RequestParam String email) {
+		return service.findByEmail(email);
+	}
+	
+	/**
+	 * Multi-get, e.g. {@code ?ids=1,2,3}: the persons are returned in the order of the ids, 
+	 * and the ids without a person are listed as missing. See {@link #findAllById(List)} for long lists.
+	 */
+	@GetMapping(params = "ids", produces = MediaType.APPLICATION_JSON_VALUE)
+	public PersonLookup findAllByIdParam(@RequestParam List<Long> ids) {
+		return service.findAllById(ids);
+	}
+	
+	// Same as the ?ids= variant, for lists of ids too long for a query string
+	@PostMapping(
+			value = "/lookup",
+			produces = MediaType.APPLICATION_JSON_VALUE,
+			consumes = MediaType.APPLICATION_JSON_VALUE
+		)
+	public PersonLookup findAllById(@RequestBody List<Long> ids) {
+		return service.findAllById(ids);
 	}
 	
+	// The ETag of the collection is the table version, checked before running the page query
+	// Optional filters and order, e.g. ?gender=Female&firstNamePrefix=Ma&sort=-lastName (see PersonFilter)
 	@GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-	public List<Person> findAll() {
+	public PersonPage<PersonDTO> findPage(
+			@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "" + PersonService.DEFAULT_PAGE_SIZE) @Min(1) int limit,
+			PersonFilter filter,
+			@RequestParam(required = false) String sort,
+			WebRequest request) {
+		if (request.checkNotModified(service.findTableVersion())) {
+			return null;
+		}
+		if (filter.isEmpty() && sort == null) {
+			return service.findPage(after, limit);
+		}
+		return service.findPage(filter, sort, after, limit);
+	}
+	
+	// Sparse fieldset variant of the page, e.g. ?fields=firstName,lastName
+	@GetMapping(params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+	public PersonPage<Map<String, Object>> findPage(
+			@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "" + PersonService.DEFAULT_PAGE_SIZE) @Min(1) int limit,
+			@RequestParam String fields,
+			WebRequest request) {
+		if (request.checkNotModified(service.findTableVersion())) {
+			return null;
+		}
+		return service.findPage(after, limit, fields);
+	}
+	
+	// Explicit opt-in for the old unpaged listing (capped at PersonService.MAX_UNPAGED_RESULTS)
+	@GetMapping(params = "unpaged=true", produces = MediaType.APPLICATION_JSON_VALUE)
+	public List<PersonDTO> findAll(WebRequest request) {
+		if (request.checkNotModified(service.findTableVersion())) {
+			return null;
+		}
 		return service.findAll();
 	}
 	
+	@GetMapping(params = {"unpaged=true", "fields"}, produces = MediaType.APPLICATION_JSON_VALUE)
+	public List<Map<String, Object>> findAll(@RequestParam String fields, WebRequest request) {
+		if (request.checkNotModified(service.findTableVersion())) {
+			return null;
+		}
+		return service.findAll(fields);
+	}
+	
+	/**
+	 * Full-text search over the names, email and address, most relevant first, e.g. ?q=maple street.
+	 * The nextCursor of a page is passed back as "after" to get the following one.
+	 */
+	@GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+	public PersonPage<PersonDTO> search(
+			@RequestParam @NotBlank @Size(max = PersonService.MAX_SEARCH_QUERY_LENGTH) String q,
+			@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "" + PersonService.DEFAULT_PAGE_SIZE) @Min(1) int limit,
+			WebRequest request) {
+		if (request.checkNotModified(service.findTableVersion())) {
+			return null;
+		}
+		return service.search(q, after, limit);
+	}
+	
+	/**
+	 * Autocomplete on the first and last names, e.g. ?prefix=jo, answered from memory without querying the database.
+	 */
+	@GetMapping(value = "/suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+	public List<PersonSuggestion> suggest(
+			@RequestParam @NotBlank @Size(max = PersonService.MAX_SUGGEST_PREFIX_LENGTH) String prefix,
+			@RequestParam(defaultValue = "" + PersonService.DEFAULT_SUGGESTIONS) @Min(1) int limit) {
+		return service.suggest(prefix, limit);
+	}
+	
+	/**
+	 * Counts of persons in total, by gender and by the most common email domains, e.g. ?domains=5.
+	 * Answered from in-memory counters instead of reading the table.
+	 */
+	@GetMapping(value = "/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+	public PersonStats findStats(
+			@RequestParam(defaultValue = "" + PersonService.DEFAULT_STATS_DOMAINS) @Min(1) int domains) {
+		return service.findStats(domains);
+	}
+	
+	/**
+	 * Streams every person as newline-delimited JSON (one object per line).
+	 * Rows are read with a streaming cursor and written as they arrive, so memory stays constant.
+	 */
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public StreamingResponseBody exportNdjson() {
+		return out -> export(out, false);
+	}
+	
+	/**
+	 * Same as {@link #exportNdjson()} but written incrementally as a single JSON array.
+	 */
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+	public StreamingResponseBody exportJsonArray() {
+		return out -> export(out, true);
+	}
+	
+	private void export(OutputStream out, boolean asArray) throws IOException {
+		try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.setRootValueSeparator(null);
+			if (asArray) {
+				generator.writeStartArray();
+			}
+			service.exportAll(person -> {
+				try {
+					exportWriter.writeValue(generator, person);
+					if (!asArray) {
+						generator.writeRaw('\n');
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e); // Client went away: abort the export and release the cursor
+				}
+			});
+			if (asArray) {
+				generator.writeEndArray();
+			}
+		}
+	}
+	
 	@PostMapping(
 			produces = MediaType.APPLICATION_JSON_VALUE,
 			consumes = MediaType.APPLICATION_JSON_VALUE
 		)
-	public ResponseEntity<Person> create(@RequestBody Person person) {
+	public ResponseEntity<PersonDTO> create(@Valid @RequestBody Person person) {
 		var persistedPerson = service.create(person);
 		
 	    URI uri = ServletUriComponentsBuilder
 	            .fromCurrentRequest() // pega a URI atual, ou seja, "/person"
 	            .path("/{id}")        // adiciona o ID na URI
-	            .buildAndExpand(persistedPerson.getId()) // substitui {id} pelo valor real
+	            .buildAndExpand(persistedPerson.id()) // substitui {id} pelo valor real
 	            .toUri();
 		
 		return ResponseEntity.created(uri).body(persistedPerson);
 	}
 	
+	/**
+	 * Creates many persons at once. Items whose email is already registered are reported 
+	 * as conflicts instead of failing the whole request.
+	 */
+	@PostMapping(
+			value = "/batch",
+			produces = MediaType.APPLICATION_JSON_VALUE,
+			consumes = MediaType.APPLICATION_JSON_VALUE
+		)
+	public List<PersonBatchResult> createAll(@RequestBody List<@Valid Person> persons) {
+		return service.createAll(persons);
+	}
+	
+	/**
+	 * Creates or updates many persons at once, matching existing records by email.
+	 */
+	@PutMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Void> upsertAllByEmail(@RequestBody List<@Valid Person> persons) {
+		service.upsertAllByEmail(persons);
+		return ResponseEntity.noContent().build();
+	}
+	
+	/**
+	 * With an If-Match header the update only applies to the version the client read (its ETag), 
+	 * otherwise it answers 412 and leaves the row untouched. Without the header the update is unconditional, 
+	 * and the response carries no ETag: the new version is not read back.
+	 */
 	@PutMapping(
 			consumes = MediaType.APPLICATION_JSON_VALUE,
 			produces = MediaType.APPLICATION_JSON_VALUE
 		)
-	public ResponseEntity<Person> update(@RequestBody Person person) {
-        try {
-            return ResponseEntity.ok(service.update(person));
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
-        }
+	public ResponseEntity<PersonDTO> update(@Valid @RequestBody Person person,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		// 404, 409 and 412 are answered by the exception handler
+		PersonDTO updatedPerson = service.update(person, parseIfMatch(ifMatch));
+		return ResponseEntity.ok()
+				.eTag(Objects.toString(updatedPerson.version(), null))
+				.body(updatedPerson);
+	}
+	
+	/**
+	 * Partial update with a JSON Merge Patch: only the fields present in the body are changed.
+	 * Honours If-Match the same way as the full update.
+	 */
+	@PatchMapping(
+			value = "/{id}",
+			consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+			produces = MediaType.APPLICATION_JSON_VALUE
+		)
+	public ResponseEntity<PersonDTO> patch(@PathVariable Long id, @RequestBody Map<String, Object> patch,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		PersonDTO patchedPerson = service.patch(id, patch, parseIfMatch(ifMatch));
+		return ResponseEntity.ok()
+				.eTag(Objects.toString(patchedPerson.version(), null))
+				.body(patchedPerson);
+	}
+	
+	// If-Match uses the strong comparison, so a weak or malformed tag can never match the current version
+	static Long parseIfMatch(String ifMatch) {
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		String tag = ifMatch.trim();
+		if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+			try {
+				return Long.valueOf(tag.substring(1, tag.length() - 1));
+			} catch (NumberFormatException e) {
+				// fall through
+			}
+		}
+		throw new PreconditionFailedException("If-Match does not match the current version: " + ifMatch);
 	}
 	
 	@DeleteMapping("/{id}")
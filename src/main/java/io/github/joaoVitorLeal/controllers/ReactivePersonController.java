@@ -0,0 +1,233 @@
+package io.github.joaoVitorLeal.controllers;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import io.github.joaoVitorLeal.dto.PersonBatchResult;
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.dto.PersonFilter;
+import io.github.joaoVitorLeal.dto.PersonLookup;
+import io.github.joaoVitorLeal.dto.PersonPage;
+import io.github.joaoVitorLeal.dto.PersonStats;
+import io.github.joaoVitorLeal.dto.PersonSuggestion;
+import io.github.joaoVitorLeal.exceptions.ResourceNotFoundException;
+import io.github.joaoVitorLeal.model.Person;
+import io.github.joaoVitorLeal.services.PersonService;
+import io.github.joaoVitorLeal.services.ReactivePersonService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux variant of {@link PersonController}, selected with the "reactive" profile: same endpoints,
+ * same status codes and headers, served without blocking a thread per request.
+ */
+@RestController
+@RequestMapping("/person")
+@Profile("reactive")
+public class ReactivePersonController {
+
+	private final ReactivePersonService service;
+
+	public ReactivePersonController(ReactivePersonService service) {
+		this.service = service;
+	}
+
+	// The ETag is the row version: a matching If-None-Match is answered with 304 when the entity is rendered
+	@GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<PersonDTO>> findById(@PathVariable Long id) {
+		return service.findById(id)
+				.map(person -> ResponseEntity.ok()
+						.eTag(Objects.toString(person.version(), null))
+						.body(person))
+				.onErrorResume(ResourceNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+	}
+
+	@GetMapping(value = "/{id}", params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<Map<String, Object>> findById(@PathVariable Long id, @RequestParam String fields) {
+		return service.findById(id, fields);
+	}
+
+	@GetMapping(params = "email", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<PersonDTO> findByEmail(@RequestParam String email) {
+		return service.findByEmail(email);
+	}
+
+	@GetMapping(params = "ids", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<PersonLookup> findAllByIdParam(@RequestParam List<Long> ids) {
+		return service.findAllById(ids);
+	}
+
+	@PostMapping(
+			value = "/lookup",
+			produces = MediaType.APPLICATION_JSON_VALUE,
+			consumes = MediaType.APPLICATION_JSON_VALUE
+		)
+	public Mono<PersonLookup> findAllById(@RequestBody List<Long> ids) {
+		return service.findAllById(ids);
+	}
+
+	@GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<PersonPage<PersonDTO>> findPage(
+			@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "" + PersonService.DEFAULT_PAGE_SIZE) @Min(1) int limit,
+			PersonFilter filter,
+			@RequestParam(required = false) String sort,
+			ServerWebExchange exchange) {
+		return unlessNotModified(exchange, () -> filter.isEmpty() && sort == null
+				? service.findPage(after, limit)
+				: service.findPage(filter, sort, after, limit));
+	}
+
+	@GetMapping(params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<PersonPage<Map<String, Object>>> findPage(
+			@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "" + PersonService.DEFAULT_PAGE_SIZE) @Min(1) int limit,
+			@RequestParam String fields,
+			ServerWebExchange exchange) {
+		return unlessNotModified(exchange, () -> service.findPage(after, limit, fields));
+	}
+
+	@GetMapping(params = "unpaged=true", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<List<PersonDTO>> findAll(ServerWebExchange exchange) {
+		return unlessNotModified(exchange, () -> service.findAll().collectList());
+	}
+
+	@GetMapping(params = {"unpaged=true", "fields"}, produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<List<Map<String, Object>>> findAll(@RequestParam String fields, ServerWebExchange exchange) {
+		return unlessNotModified(exchange, () -> service.findAll(fields).collectList());
+	}
+
+	@GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<PersonPage<PersonDTO>> search(
+			@RequestParam @NotBlank @Size(max = PersonService.MAX_SEARCH_QUERY_LENGTH) String q,
+			@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "" + PersonService.DEFAULT_PAGE_SIZE) @Min(1) int limit,
+			ServerWebExchange exchange) {
+		return unlessNotModified(exchange, () -> service.search(q, after, limit));
+	}
+	
+	@GetMapping(value = "/suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<List<PersonSuggestion>> suggest(
+			@RequestParam @NotBlank @Size(max = PersonService.MAX_SUGGEST_PREFIX_LENGTH) String prefix,
+			@RequestParam(defaultValue = "" + PersonService.DEFAULT_SUGGESTIONS) @Min(1) int limit) {
+		return service.suggest(prefix, limit);
+	}
+	
+	@GetMapping(value = "/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<PersonStats> findStats(
+			@RequestParam(defaultValue = "" + PersonService.DEFAULT_STATS_DOMAINS) @Min(1) int domains) {
+		return service.findStats(domains);
+	}
+	
+	// Same as WebRequest.checkNotModified in PersonController: the table version is checked before the query runs
+	private <T> Mono<T> unlessNotModified(ServerWebExchange exchange, Supplier<Mono<T>> body) {
+		return service.findTableVersion()
+				.flatMap(version -> exchange.checkNotModified(version) ? Mono.<T>empty() : body.get());
+	}
+
+	/**
+	 * Streams every person as newline-delimited JSON. Rows are read from the database only as fast as
+	 * the client consumes them (backpressure), so memory stays constant whatever the size of the table.
+	 */
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<PersonDTO> exportNdjson() {
+		return service.exportAll();
+	}
+
+	/**
+	 * Same as {@link #exportNdjson()} but encoded incrementally as a single JSON array.
+	 */
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Flux<PersonDTO> exportJsonArray() {
+		return service.exportAll();
+	}
+
+	@PostMapping(
+			produces = MediaType.APPLICATION_JSON_VALUE,
+			consumes = MediaType.APPLICATION_JSON_VALUE
+		)
+	public Mono<ResponseEntity<PersonDTO>> create(@Valid @RequestBody Person person, ServerWebExchange exchange) {
+		return service.create(person)
+				.map(persistedPerson -> {
+					URI uri = UriComponentsBuilder
+							.fromUri(exchange.getRequest().getURI())
+							.path("/{id}")
+							.buildAndExpand(persistedPerson.id())
+							.toUri();
+					return ResponseEntity.created(uri).body(persistedPerson);
+				});
+	}
+
+	@PostMapping(
+			value = "/batch",
+			produces = MediaType.APPLICATION_JSON_VALUE,
+			consumes = MediaType.APPLICATION_JSON_VALUE
+		)
+	public Mono<List<PersonBatchResult>> createAll(@RequestBody List<@Valid Person> persons) {
+		return service.createAll(persons);
+	}
+
+	@PutMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Void>> upsertAllByEmail(@RequestBody List<@Valid Person> persons) {
+		return service.upsertAllByEmail(persons)
+				.then(Mono.just(ResponseEntity.noContent().build()));
+	}
+
+	// Like PersonController.update: only a missing person is answered here, with an empty 404
+	@PutMapping(
+			consumes = MediaType.APPLICATION_JSON_VALUE,
+			produces = MediaType.APPLICATION_JSON_VALUE
+		)
+	public Mono<ResponseEntity<PersonDTO>> update(@Valid @RequestBody Person person,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return service.update(person, PersonController.parseIfMatch(ifMatch))
+				.map(updatedPerson -> ResponseEntity.ok()
+						.eTag(Objects.toString(updatedPerson.version(), null))
+						.body(updatedPerson))
+				.onErrorResume(ResourceNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+	}
+
+	@PatchMapping(
+			value = "/{id}",
+			consumes = {PersonController.MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+			produces = MediaType.APPLICATION_JSON_VALUE
+		)
+	public Mono<ResponseEntity<PersonDTO>> patch(@PathVariable Long id, @RequestBody Map<String, Object> patch,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return service.patch(id, patch, PersonController.parseIfMatch(ifMatch))
+				.map(patchedPerson -> ResponseEntity.ok()
+						.eTag(Objects.toString(patchedPerson.version(), null))
+						.body(patchedPerson));
+	}
+
+	@DeleteMapping("/{id}")
+	public Mono<ResponseEntity<Void>> delete(@PathVariable Long id) {
+		return service.delete(id)
+				.then(Mono.just(ResponseEntity.noContent().build()));
+	}
+}
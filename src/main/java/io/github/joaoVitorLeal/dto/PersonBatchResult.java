@@ -0,0 +1,26 @@
+package io.github.joaoVitorLeal.dto;
+
+/**
+ * Outcome of one item of a batch create, in the same position as the item in the request.
+ * 
+ * @param index   position of the item in the request array
+ * @param status  whether the person was created or rejected
+ * @param id      generated id, only set when {@code status} is {@link Status#CREATED}
+ * @param email   email of the item, to help clients correlate results
+ * @param message reason of the rejection, only set when {@code status} is {@link Status#CONFLICT}
+ */
+public record PersonBatchResult(int index, Status status, Long id, String email, String message) {
+	
+	public enum Status {
+		CREATED,
+		CONFLICT
+	}
+	
+	public static PersonBatchResult created(int index, Long id, String email) {
+		return new PersonBatchResult(index, Status.CREATED, id, email, null);
+	}
+	
+	public static PersonBatchResult conflict(int index, String email, String message) {
+		return new PersonBatchResult(index, Status.CONFLICT, null, email, message);
+	}
+}
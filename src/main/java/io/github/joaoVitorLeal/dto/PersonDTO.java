@@ -0,0 +1,13 @@
+package io.github.joaoVitorLeal.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Person as returned by the API. Immutable, and never attached to a persistence context: 
+ * the read queries build it straight from the selected columns, without loading the entity.
+ * 
+ * @param version row version, exposed to clients as the ETag, not in the body
+ */
+public record PersonDTO(Long id, String firstName, String lastName, String email, String address, String gender,
+		@JsonIgnore Long version) {
+}
@@ -0,0 +1,28 @@
+package io.github.joaoVitorLeal.dto;
+
+/**
+ * Criteria of a filtered listing (GET /person?gender=...&lastName=...), bound from the query parameters.
+ * Every criterion is optional, blank ones are ignored, and a person must match all the others.
+ * 
+ * @param gender          exact gender
+ * @param lastName        exact last name
+ * @param firstNamePrefix beginning of the first name
+ * @param emailDomain     part of the email after the "@", e.g. "gmail.com"
+ */
+public record PersonFilter(String gender, String lastName, String firstNamePrefix, String emailDomain) {
+	
+	public PersonFilter {
+		gender = blankToNull(gender);
+		lastName = blankToNull(lastName);
+		firstNamePrefix = blankToNull(firstNamePrefix);
+		emailDomain = blankToNull(emailDomain);
+	}
+	
+	public boolean isEmpty() {
+		return gender == null && lastName == null && firstNamePrefix == null && emailDomain == null;
+	}
+	
+	private static String blankToNull(String value) {
+		return value == null || value.isBlank() ? null : value.strip();
+	}
+}
@@ -0,0 +1,12 @@
+package io.github.joaoVitorLeal.dto;
+
+import java.util.List;
+
+/**
+ * Result of a multi-get: the persons found and the ids that match no person.
+ * 
+ * @param content persons found, in the order of their ids in the request
+ * @param missing requested ids without a person, in request order
+ */
+public record PersonLookup(List<PersonDTO> content, List<Long> missing) {
+}
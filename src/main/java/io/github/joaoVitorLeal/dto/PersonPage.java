@@ -0,0 +1,14 @@
+package io.github.joaoVitorLeal.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset (cursor) paginated listing.
+ * 
+ * @param <T>        {@code Person}, or a map of the selected fields for sparse fieldsets
+ * @param content    persons of this page, ordered by id
+ * @param nextCursor opaque cursor to pass as {@code after} to fetch the next page, 
+ *                   or {@code null} when this is the last page
+ */
+public record PersonPage<T>(List<T> content, String nextCursor) {
+}
@@ -0,0 +1,13 @@
+package io.github.joaoVitorLeal.dto;
+
+import java.util.Map;
+
+/**
+ * Aggregate counts over every person.
+ * 
+ * @param total         number of persons
+ * @param byGender      number of persons of each gender, keyed in lower case
+ * @param byEmailDomain number of persons of the most common email domains in lower case, most common first
+ */
+public record PersonStats(long total, Map<String, Long> byGender, Map<String, Long> byEmailDomain) {
+}
@@ -0,0 +1,7 @@
+package io.github.joaoVitorLeal.dto;
+
+/**
+ * Autocomplete entry returned by GET /person/suggest: just enough to display the name and open the person.
+ */
+public record PersonSuggestion(Long id, String firstName, String lastName) {
+}
@@ -0,0 +1,74 @@
+package io.github.joaoVitorLeal.exceptions;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.method.ParameterErrors;
+import org.springframework.validation.method.ParameterValidationResult;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
+
+import jakarta.validation.ConstraintViolationException;
+
+/**
+ * Body of a 400 answered for a request that breaks the Bean Validation constraints, with one entry per invalid field.
+ */
+public class ValidationExceptionResponse extends ExceptionResponse {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final List<FieldViolation> errors;
+	
+	/**
+	 * @param field   path of the invalid value in the request: "email", "[2].email" for a batch item, "limit" for a parameter
+	 * @param message why the value was rejected
+	 */
+	public record FieldViolation(String field, String message) implements Serializable {}
+	
+	public ValidationExceptionResponse(LocalDateTime timeStamp, List<FieldViolation> errors, String details) {
+		super(timeStamp, "Validation failed for " + errors.size() + " field(s)", details);
+		this.errors = errors;
+	}
+	
+	public List<FieldViolation> getErrors() {
+		return errors;
+	}
+	
+	// @Valid request body
+	public static List<FieldViolation> violationsOf(Errors errors) {
+		return violationsOf(errors, "");
+	}
+	
+	// Constraints on handler method parameters, and @Valid elements of a request body list
+	public static List<FieldViolation> violationsOf(HandlerMethodValidationException ex) {
+		List<FieldViolation> violations = new ArrayList<>();
+		for (ParameterValidationResult result : ex.getParameterValidationResults()) {
+			if (result instanceof ParameterErrors errors) {
+				String prefix = errors.getContainerIndex() == null ? "" : "[" + errors.getContainerIndex() + "].";
+				violations.addAll(violationsOf(errors, prefix));
+			} else {
+				String parameter = result.getMethodParameter().getParameterName();
+				result.getResolvableErrors().forEach(error -> violations.add(new FieldViolation(parameter, error.getDefaultMessage())));
+			}
+		}
+		return violations;
+	}
+	
+	// Values validated by the service layer, e.g. the members of a merge patch, checked before any row is read
+	public static List<FieldViolation> violationsOf(ConstraintViolationException ex) {
+		return ex.getConstraintViolations().stream()
+				.map(violation -> new FieldViolation(violation.getPropertyPath().toString(), violation.getMessage()))
+				.toList();
+	}
+	
+	private static List<FieldViolation> violationsOf(Errors errors, String prefix) {
+		List<FieldViolation> violations = new ArrayList<>();
+		for (FieldError error : errors.getFieldErrors()) {
+			violations.add(new FieldViolation(prefix + error.getField(), error.getDefaultMessage()));
+		}
+		return violations;
+	}
+}
@@ -2,25 +2,48 @@ package io.github.joaoVitorLeal.exceptions.handler;
 
 import java.time.LocalDateTime;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import io.github.joaoVitorLeal.exceptions.DuplicateRegistrationException;
 import io.github.joaoVitorLeal.exceptions.ExceptionResponse;
+import io.github.joaoVitorLeal.exceptions.InvalidRequestException;
+import io.github.joaoVitorLeal.exceptions.PreconditionFailedException;
 import io.github.joaoVitorLeal.exceptions.ResourceNotFoundException;
+import io.github.joaoVitorLeal.exceptions.ValidationExceptionResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 
 @RestController
 @ControllerAdvice
 @Slf4j
+@Profile("!reactive") // Replaced by the WebFlux variant in the "reactive" profile
 public class CustomizedResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
 	
+	// Counter of the error responses, tagged with their status and the exception that caused them
+	public static final String ERRORS_METER = "person.errors";
+	
+	private final MeterRegistry meterRegistry;
+	
+	// The global registry is a no-op when no registry is configured, as in web slice tests
+	public CustomizedResponseEntityExceptionHandler(ObjectProvider<MeterRegistry> meterRegistry) {
+		this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+	}
+	
 	@ExceptionHandler(Exception.class)
 	@ResponseStatus(value = HttpStatus.INTERNAL_SERVER_ERROR)
 	public final ResponseEntity<ExceptionResponse> handleAllExceptions(Exception ex, WebRequest request) {
@@ -33,6 +56,7 @@ public class CustomizedResponseEntityExceptionHandler extends ResponseEntityExce
 				request.getDescription(false)
 			);
 		
+		countError(ex, HttpStatus.INTERNAL_SERVER_ERROR);
 		return new ResponseEntity<>(exceptionResponse, HttpStatus.INTERNAL_SERVER_ERROR);
 	}
 	
@@ -47,6 +71,7 @@ public class CustomizedResponseEntityExceptionHandler extends ResponseEntityExce
 	        request.getDescription(false)
 	    );
 	    
+	    countError(ex, HttpStatus.NOT_FOUND);
 	    return new ResponseEntity<>(exceptionResponse, HttpStatus.NOT_FOUND);
 	}
 	
@@ -57,6 +82,72 @@ public class CustomizedResponseEntityExceptionHandler extends ResponseEntityExce
 		
 		ExceptionResponse exceptionResponse = new ExceptionResponse(LocalDateTime.now(), ex.getMessage(), request.getDescription(false));
 		
+		countError(ex, HttpStatus.CONFLICT);
 		return new ResponseEntity<>(exceptionResponse, HttpStatus.CONFLICT);
 	}
+	
+	@ExceptionHandler(InvalidRequestException.class)
+	@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+	public final ResponseEntity<ExceptionResponse> handleInvalidRequestException(
+			InvalidRequestException ex, WebRequest request) {
+		
+		ExceptionResponse exceptionResponse = new ExceptionResponse(LocalDateTime.now(), ex.getMessage(), request.getDescription(false));
+		
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<>(exceptionResponse, HttpStatus.BAD_REQUEST);
+	}
+	
+	// Thrown by the service layer for values outside a validated request body: the members of a merge patch,
+	// checked against the constraints of Person with Validator#validateValue before any row is read
+	@ExceptionHandler(ConstraintViolationException.class)
+	@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+	public final ResponseEntity<ExceptionResponse> handleConstraintViolationException(
+			ConstraintViolationException ex, WebRequest request) {
+		
+		ExceptionResponse exceptionResponse = new ValidationExceptionResponse(
+				LocalDateTime.now(), ValidationExceptionResponse.violationsOf(ex), request.getDescription(false));
+		
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<>(exceptionResponse, HttpStatus.BAD_REQUEST);
+	}
+	
+	// @Valid request body, rejected before the controller method runs: no transaction, no connection
+	@Override
+	protected ResponseEntity<Object> handleMethodArgumentNotValid(
+			MethodArgumentNotValidException ex, HttpHeaders headers, HttpStatusCode status, WebRequest request) {
+		
+		ExceptionResponse exceptionResponse = new ValidationExceptionResponse(
+				LocalDateTime.now(), ValidationExceptionResponse.violationsOf(ex.getBindingResult()), request.getDescription(false));
+		
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<>(exceptionResponse, HttpStatus.BAD_REQUEST);
+	}
+	
+	// Constraints on request parameters and on the items of a request body list
+	@Override
+	protected ResponseEntity<Object> handleHandlerMethodValidationException(
+			HandlerMethodValidationException ex, HttpHeaders headers, HttpStatusCode status, WebRequest request) {
+		
+		ExceptionResponse exceptionResponse = new ValidationExceptionResponse(
+				LocalDateTime.now(), ValidationExceptionResponse.violationsOf(ex), request.getDescription(false));
+		
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<>(exceptionResponse, HttpStatus.BAD_REQUEST);
+	}
+	
+	@ExceptionHandler(PreconditionFailedException.class)
+	@ResponseStatus(value = HttpStatus.PRECONDITION_FAILED)
+	public final ResponseEntity<ExceptionResponse> handlePreconditionFailedException(
+			PreconditionFailedException ex, WebRequest request) {
+		
+		ExceptionResponse exceptionResponse = new ExceptionResponse(LocalDateTime.now(), ex.getMessage(), request.getDescription(false));
+		
+		countError(ex, HttpStatus.PRECONDITION_FAILED);
+		return new ResponseEntity<>(exceptionResponse, HttpStatus.PRECONDITION_FAILED);
+	}
+	
+	private void countError(Exception ex, HttpStatus status) {
+		meterRegistry.counter(ERRORS_METER, "status", String.valueOf(status.value()), "exception", ex.getClass().getSimpleName())
+				.increment();
+	}
 }
@@ -0,0 +1,116 @@
+package io.github.joaoVitorLeal.exceptions.handler;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
+import org.springframework.web.reactive.result.method.annotation.ResponseEntityExceptionHandler;
+import org.springframework.web.server.ServerWebExchange;
+
+import io.github.joaoVitorLeal.exceptions.DuplicateRegistrationException;
+import io.github.joaoVitorLeal.exceptions.ExceptionResponse;
+import io.github.joaoVitorLeal.exceptions.InvalidRequestException;
+import io.github.joaoVitorLeal.exceptions.PreconditionFailedException;
+import io.github.joaoVitorLeal.exceptions.ResourceNotFoundException;
+import io.github.joaoVitorLeal.exceptions.ValidationExceptionResponse;
+import io.github.joaoVitorLeal.exceptions.ValidationExceptionResponse.FieldViolation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+// Same responses as CustomizedResponseEntityExceptionHandler, for the WebFlux stack ("reactive" profile)
+@RestControllerAdvice
+@Profile("reactive")
+@Slf4j
+public class ReactiveResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
+	
+	private final MeterRegistry meterRegistry;
+	
+	public ReactiveResponseEntityExceptionHandler(ObjectProvider<MeterRegistry> meterRegistry) {
+		this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+	}
+	
+	@ExceptionHandler(Exception.class)
+	public final ResponseEntity<ExceptionResponse> handleAllExceptions(Exception ex, ServerWebExchange exchange) {
+		log.error("Exception occured: ", ex);
+		return response(ex, exchange, HttpStatus.INTERNAL_SERVER_ERROR);
+	}
+	
+	@ExceptionHandler(ResourceNotFoundException.class)
+	public final ResponseEntity<ExceptionResponse> handleNotFoundException(
+			ResourceNotFoundException ex, ServerWebExchange exchange) {
+		return response(ex, exchange, HttpStatus.NOT_FOUND);
+	}
+	
+	@ExceptionHandler(DuplicateRegistrationException.class)
+	public final ResponseEntity<ExceptionResponse> handleDuplicateRegistrationException(
+			DuplicateRegistrationException ex, ServerWebExchange exchange) {
+		return response(ex, exchange, HttpStatus.CONFLICT);
+	}
+	
+	@ExceptionHandler(InvalidRequestException.class)
+	public final ResponseEntity<ExceptionResponse> handleInvalidRequestException(
+			InvalidRequestException ex, ServerWebExchange exchange) {
+		return response(ex, exchange, HttpStatus.BAD_REQUEST);
+	}
+	
+	@ExceptionHandler(PreconditionFailedException.class)
+	public final ResponseEntity<ExceptionResponse> handlePreconditionFailedException(
+			PreconditionFailedException ex, ServerWebExchange exchange) {
+		return response(ex, exchange, HttpStatus.PRECONDITION_FAILED);
+	}
+	
+	@ExceptionHandler(ConstraintViolationException.class)
+	public final ResponseEntity<ExceptionResponse> handleConstraintViolationException(
+			ConstraintViolationException ex, ServerWebExchange exchange) {
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<>(validationResponse(ValidationExceptionResponse.violationsOf(ex), exchange), HttpStatus.BAD_REQUEST);
+	}
+	
+	@Override
+	protected Mono<ResponseEntity<Object>> handleWebExchangeBindException(
+			WebExchangeBindException ex, HttpHeaders headers, HttpStatusCode status, ServerWebExchange exchange) {
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return Mono.just(ResponseEntity.badRequest().body(validationResponse(ValidationExceptionResponse.violationsOf(ex), exchange)));
+	}
+	
+	@Override
+	protected Mono<ResponseEntity<Object>> handleHandlerMethodValidationException(
+			HandlerMethodValidationException ex, HttpHeaders headers, HttpStatusCode status, ServerWebExchange exchange) {
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return Mono.just(ResponseEntity.badRequest().body(validationResponse(ValidationExceptionResponse.violationsOf(ex), exchange)));
+	}
+	
+	// Same details as WebRequest.getDescription(false) on the servlet stack: "uri=/person/1"
+	private ResponseEntity<ExceptionResponse> response(Exception ex, ServerWebExchange exchange, HttpStatus status) {
+		countError(ex, status);
+		ExceptionResponse exceptionResponse = new ExceptionResponse(
+				LocalDateTime.now(),
+				ex.getMessage(),
+				"uri=" + exchange.getRequest().getPath().value()
+			);
+		return new ResponseEntity<>(exceptionResponse, status);
+	}
+	
+	// Same meter as CustomizedResponseEntityExceptionHandler
+	private void countError(Exception ex, HttpStatus status) {
+		meterRegistry.counter(CustomizedResponseEntityExceptionHandler.ERRORS_METER,
+				"status", String.valueOf(status.value()), "exception", ex.getClass().getSimpleName())
+				.increment();
+	}
+	
+	private static ExceptionResponse validationResponse(List<FieldViolation> violations, ServerWebExchange exchange) {
+		return new ValidationExceptionResponse(LocalDateTime.now(), violations, "uri=" + exchange.getRequest().getPath().value());
+	}
+}
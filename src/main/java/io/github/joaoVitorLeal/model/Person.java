@@ -3,15 +3,38 @@ package io.github.joaoVitorLeal.model;
 import java.io.Serializable;
 import java.util.Objects;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
 @Entity
-@Table(name = "person")
+// Secondary indexes matched to the filters of GET /person (PersonRepository#findDTOsByFilter), see table-scheme.sql.
+// InnoDB appends the primary key to each of them, so they also return the rows in id order for the keyset pages.
+@Table(name = "person", indexes = {
+	@Index(name = "idx_person_last_name_first_name", columnList = "last_name, first_name"),
+	@Index(name = "idx_person_first_name", columnList = "first_name"),
+	@Index(name = "idx_person_gender_last_name", columnList = "gender, last_name"),
+	@Index(name = "idx_person_email_domain_last_name", columnList = "email_domain, last_name")
+})
+@DynamicUpdate // Entity updates only write the changed columns
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "person") // Regions are sized in application.conf
+@NaturalIdCache(region = "person-natural-id")
 public class Person implements Serializable {
 
 	private static final long serialVersionUID = 1L;
@@ -20,20 +43,46 @@ public class Person implements Serializable {
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long id;
 	
+	// Bean Validation constraints mirror the column definitions, so an invalid person is rejected 
+	// with a 400 before it reaches the database
+	@NotBlank
+	@Size(max = 80)
 	@Column(name = "first_name", nullable = false, length = 80)
 	private String firstName;
 	
+	@NotBlank
+	@Size(max = 80)
 	@Column(name = "last_name", nullable = false, length = 80)
 	private String lastName;
 	
+	@NotBlank
+	@Email
+	@Size(max = 150)
+	@NaturalId(mutable = true)
 	@Column(nullable = false, unique = true, length = 150)
 	private String email;
 	
+	@NotBlank
+	@Size(max = 100)
 	@Column(nullable = false, length = 100)
 	private String address;
 	
+	@NotBlank
+	@Size(max = 15)
 	@Column(nullable = false, length = 15)
 	private String gender;
+	
+	// Computed by MySQL from the email, so filtering on the domain is an index lookup rather than a "like '%@...'" scan.
+	// Only read by the filter queries: Hibernate never writes it, and it is not part of the API
+	@Column(name = "email_domain", insertable = false, updatable = false,
+			columnDefinition = "varchar(150) generated always as (substring_index(email, '@', -1)) stored")
+	private String emailDomain;
+	
+	// Row version, incremented on every write. Exposed to clients as the ETag, not in the body.
+	@JsonIgnore
+	@Version
+	@Column(nullable = false)
+	private Long version;
 
 	public Person() {}
 
@@ -102,6 +151,14 @@ public class Person implements Serializable {
 		this.gender = gender;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(address, firstName, gender, id, lastName);
@@ -0,0 +1,77 @@
+package io.github.joaoVitorLeal.model;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Append-only record of a write to the person table, inserted in the same transaction as the write.
+ * The highest {@code seq} works as a table-level version: it changes whenever any person changes.
+ */
+@Entity
+@Table(name = "person_change_log")
+public class PersonChangeLog implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	
+	public enum Operation {
+		CREATE,
+		UPDATE,
+		UPSERT,
+		DELETE
+	}
+	
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long seq;
+	
+	@Column(name = "person_id", nullable = false)
+	private Long personId;
+	
+	// Version of the row after the write, null for deletes
+	private Long version;
+	
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 10)
+	private Operation operation;
+	
+	@Column(name = "changed_at", nullable = false)
+	private Instant changedAt;
+
+	public PersonChangeLog() {}
+
+	public PersonChangeLog(Long personId, Long version, Operation operation) {
+		this.personId = personId;
+		this.version = version;
+		this.operation = operation;
+		this.changedAt = Instant.now();
+	}
+
+	public Long getSeq() {
+		return seq;
+	}
+
+	public Long getPersonId() {
+		return personId;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public Operation getOperation() {
+		return operation;
+	}
+
+	public Instant getChangedAt() {
+		return changedAt;
+	}
+}
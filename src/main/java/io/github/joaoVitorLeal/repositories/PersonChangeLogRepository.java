@@ -0,0 +1,63 @@
+package io.github.joaoVitorLeal.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.joaoVitorLeal.model.PersonChangeLog;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface PersonChangeLogRepository extends JpaRepository<PersonChangeLog, Long> {
+	
+	// Table-level version of the person table, used as the ETag of the collection resources.
+	// The highest seq changes on every committed write. Sequence values are taken before commit, so a slower 
+	// transaction can commit below the current max: counting the recent entries catches those late commits. 
+	// Both parts are answered from a short range of the primary key index, never from a full scan.
+	String TABLE_VERSION_QUERY = "select concat(coalesce(max(c.seq), 0), '-', count(*)) from person_change_log c "
+			+ "where c.seq > (select coalesce(max(l.seq), 0) - 1000 from person_change_log l)";
+	
+	@Query(nativeQuery = true, value = TABLE_VERSION_QUERY)
+	String findTableVersion();
+	
+	// Copies the current version of the written rows inside the database, without reading them back first.
+	// Native statements are assumed to touch every table unless told otherwise, which would evict 
+	// every second-level cache region on each write: the query space limits that to the log table.
+	@Modifying
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "person_change_log"))
+	@Query(nativeQuery = true, value = "insert into person_change_log (person_id, version, operation, changed_at) "
+			+ "select p.id, p.version, :operation, current_timestamp from person p where p.id in (:ids)")
+	int appendForIds(@Param("ids") Collection<Long> ids, @Param("operation") String operation);
+	
+	@Modifying
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "person_change_log"))
+	@Query(nativeQuery = true, value = "insert into person_change_log (person_id, version, operation, changed_at) "
+			+ "select p.id, p.version, :operation, current_timestamp from person p where p.email in (:emails)")
+	int appendForEmails(@Param("emails") Collection<String> emails, @Param("operation") String operation);
+	
+	// Tail of the log read by every instance (PersonChangeLogPoller): a range scan of the primary key.
+	// The poller reads the primary, not a replica (these transactions are not read-only): 
+	// an eviction must not be seen before the write it reports can be read back
+	@Transactional
+	List<PersonChangeLog> findBySeqGreaterThanOrderBySeqAsc(Long seq, Limit limit);
+	
+	@Transactional
+	List<PersonChangeLog> findBySeqIn(Collection<Long> seqs);
+	
+	@Transactional
+	@Query("select coalesce(max(c.seq), 0) from PersonChangeLog c")
+	Long findMaxSeq();
+	
+	@Modifying
+	@Query("delete from PersonChangeLog c where c.seq <= :seq")
+	int deleteBySeqLessThanEqual(@Param("seq") Long seq);
+}
@@ -0,0 +1,7 @@
+package io.github.joaoVitorLeal.repositories;
+
+/**
+ * Number of persons sharing one gender and one email domain, a row of {@link PersonRepository#countByGenderAndEmailDomain()}.
+ */
+public record PersonCount(String gender, String emailDomain, Long persons) {
+}
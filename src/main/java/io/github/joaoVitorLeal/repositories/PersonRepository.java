@@ -1,25 +1,85 @@
 package io.github.joaoVitorLeal.repositories;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
+import io.github.joaoVitorLeal.dto.PersonDTO;
 import io.github.joaoVitorLeal.model.Person;
 
 
 @Repository
-public interface PersonRepository extends JpaRepository<Person, Long> {
+public interface PersonRepository extends JpaRepository<Person, Long>, PersonRepositoryCustom {
+	
+	// Constructor expression shared by the read queries: the records are filled straight from the selected columns, 
+	// so no entity is instantiated, registered in the persistence context or snapshotted for dirty checking, 
+	// and the second-level cache is neither read nor written
+	String PERSON_DTO = "new io.github.joaoVitorLeal.dto.PersonDTO(p.id, p.firstName, p.lastName, p.email, p.address, p.gender, p.version)";
+	
+	// Not read-only, so it reads from the primary when replicas are configured (ReplicaRoutingDataSource): 
+	// PersonCache keeps what it loads until the change log evicts it, a row loaded from a lagging replica 
+	// would stay stale in it
+	@Transactional
+	@Query("select " + PERSON_DTO + " from Person p where p.id = :id")
+	Optional<PersonDTO> findDTOById(@Param("id") Long id);
+	
+	// Primary key lookups in one round-trip. From the primary, for the same reason as findDTOById
+	@Transactional
+	@Query("select " + PERSON_DTO + " from Person p where p.id in :ids")
+	List<PersonDTO> findDTOsByIdIn(@Param("ids") Collection<Long> ids);
+	
+	// Full scan grouped on both counters of PersonCounters at once, run at startup and when reconciling. 
+	// From the primary, so that a lagging replica does not undo the writes already counted
+	@Transactional
+	@Query("select new io.github.joaoVitorLeal.repositories.PersonCount(p.gender, p.emailDomain, count(p)) "
+			+ "from Person p group by p.gender, p.emailDomain")
+	List<PersonCount> countByGenderAndEmailDomain();
+	
+	// Set-based duplicate check: one round-trip (served by the unique email index) for many emails
+	@Query("select p.email from Person p where p.email in :emails")
+	Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+	
+	// Keyset (seek) pagination: "where id > ? order by id limit ?" is an index range scan on the primary key, 
+	// so deep pages cost the same as the first one (no OFFSET rows to skip)
+	@Query("select " + PERSON_DTO + " from Person p where p.id > :id order by p.id")
+	List<PersonDTO> findDTOsByIdGreaterThan(@Param("id") Long id, Limit limit);
 	
-	Optional<Person> findByEmail(String email);
+	// Streams the whole table row by row. A fetch size of Integer.MIN_VALUE switches MySQL Connector/J 
+	// to a streaming result set instead of buffering every row client side. Must be consumed (and closed) 
+	// inside a transaction, and no other query can run on the same connection until it is closed.
+	// Nothing is added to the persistence context, so memory does not grow with the size of the table.
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+	@Query("select " + PERSON_DTO + " from Person p order by p.id")
+	Stream<PersonDTO> streamAll();
 	
 	// Define custom query using JPQL with index parameters
+	// Results are cached until the person table is written through Hibernate (or evicted after a JDBC write)
+	@QueryHints({
+		@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+		@QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "person-queries")
+	})
 	@Query("select p from Person p where p.firstName =?1 and p.lastName =?2 ")
 	Person findByJPQL(String firstName, String lastName);
 	
 	// Define custom query using JPQL with named parameters
+	@QueryHints({
+		@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+		@QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "person-queries")
+	})
 	@Query("select p from Person p where p.firstName =:firstName and p.lastName =:lastName and p.gender =:gender")
 	Person findByJPQLNamedParameters(@Param("firstName") String firstName, @Param("lastName") String lastName, @Param("gender") String gender);
 
@@ -0,0 +1,94 @@
+package io.github.joaoVitorLeal.repositories;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.dto.PersonFilter;
+import io.github.joaoVitorLeal.model.Person;
+
+/**
+ * Custom {@link PersonRepository} operations that need direct JDBC access or a query built at runtime.
+ */
+public interface PersonRepositoryCustom {
+	
+	/**
+	 * Natural id lookup: resolved through the second-level cache (email to id, then id to entity) when possible.
+	 * A cached resolution that no longer matches the person it points to is evicted and the email queried again.
+	 */
+	Optional<Person> findByEmail(String email);
+	
+	/**
+	 * Inserts all persons using JDBC batching and sets the generated ids on the given objects.
+	 * Bypasses the persistence context: the persons are not managed after the call, 
+	 * and cached query results are evicted once the transaction commits.
+	 */
+	List<Person> batchInsert(List<Person> persons);
+	
+	/**
+	 * Replaces the columns of one person with a single UPDATE and increments its version. Only the 
+	 * second-level cache entry of this person is evicted, once the transaction commits.
+	 * 
+	 * @param expectedVersion version the row must still have ("where id = ? and version = ?"), 
+	 *                        or null to update it whatever its version
+	 * @return 1 if the row was updated, 0 if it does not exist or its version is no longer {@code expectedVersion}
+	 */
+	int updateById(Person person, Long expectedVersion);
+	
+	/**
+	 * Writes only the given columns of one person with a single UPDATE. The version is incremented only when 
+	 * one of them actually changes, so a patch that changes nothing leaves the row untouched.
+	 * 
+	 * @param fields          new values by entity attribute name (firstName, lastName, email, address, gender)
+	 * @param expectedVersion version the row must still have, or null to update it whatever its version
+	 * @return 1 if the row was found, changed or not, 0 if it does not exist or its version is no longer {@code expectedVersion}
+	 */
+	int patchById(Long id, Map<String, String> fields, Long expectedVersion);
+	
+	/**
+	 * Deletes one person with a single DELETE. Only the second-level cache entry of this person is evicted, 
+	 * once the transaction commits.
+	 * 
+	 * @param expectedVersion version the row must still have, or null to delete it whatever its version
+	 * @return 1 if the row was deleted, 0 if it does not exist or its version is no longer {@code expectedVersion}
+	 */
+	int removeById(Long id, Long expectedVersion);
+	
+	/**
+	 * Inserts the persons, or updates the existing rows with the same email, with one multi-row 
+	 * "INSERT ... ON DUPLICATE KEY UPDATE" statement per chunk. The second-level cache regions 
+	 * of Person are evicted once the transaction commits.
+	 * 
+	 * @return affected rows as reported by MySQL (1 per inserted row, 2 per updated row)
+	 */
+	int upsertAllByEmail(List<Person> persons);
+	
+	/**
+	 * Selects only the given fields of the persons with an id greater than {@code afterId}, in id order.
+	 * The SELECT lists just those columns, so no entity is loaded.
+	 * 
+	 * @param fields entity attribute names, used as keys of the returned maps in the same order
+	 */
+	List<Map<String, Object>> findFieldsByIdGreaterThan(List<String> fields, Long afterId, int limit);
+	
+	/**
+	 * Single row variant of {@link #findFieldsByIdGreaterThan(List, Long, int)}.
+	 */
+	Optional<Map<String, Object>> findFieldsById(List<String> fields, Long id);
+	
+	/**
+	 * Keyset page of the persons matching every criterion of the filter, ordered by the sort field then by id.
+	 * Each criterion leads one of the secondary indexes of {@link Person}, so no combination scans the table.
+	 * 
+	 * @param afterValue sort field value of the last row of the previous page, unused when sorting by id
+	 * @param afterId    id of the last row of the previous page, or null for the first page
+	 */
+	List<PersonDTO> findDTOsByFilter(PersonFilter filter, PersonSort sort, String afterValue, Long afterId, int limit);
+	
+	/**
+	 * Natural language full-text search over the names, email and address, most relevant first, then in id order.
+	 * Served by the FULLTEXT index person_search (see table-scheme.sql): only the matching rows are read and ranked.
+	 */
+	List<PersonDTO> search(String query, int offset, int limit);
+}
@@ -0,0 +1,381 @@
+package io.github.joaoVitorLeal.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.joaoVitorLeal.config.AfterCommit;
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.dto.PersonFilter;
+import io.github.joaoVitorLeal.model.Person;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * JDBC and Criteria implementation of {@link PersonRepositoryCustom}, picked up by Spring Data through the "Impl" suffix.
+ * 
+ * Person ids use GenerationType.IDENTITY, which forces Hibernate to run one INSERT per entity. 
+ * Going through JDBC directly lets us send real batches (rewritten by MySQL Connector/J into 
+ * multi-row INSERTs when rewriteBatchedStatements=true) while still getting the generated ids back.
+ */
+class PersonRepositoryImpl implements PersonRepositoryCustom {
+	
+	static final int BATCH_SIZE = 500;
+	
+	private static final String INSERT_SQL = 
+			"insert into person (first_name, last_name, email, address, gender, version) values (?, ?, ?, ?, ?, 0)";
+	
+	// Single statements: no SELECT beforehand, the affected row count tells whether the id exists, or with the 
+	// version predicate whether the write won. Relies on Connector/J reporting matched rows (useAffectedRows=false, 
+	// the default), so an update that changes nothing still counts as found
+	private static final String UPDATE_SQL = 
+			"update person set first_name = ?, last_name = ?, email = ?, address = ?, gender = ?, version = version + 1 "
+			+ "where id = ?";
+	
+	private static final String DELETE_SQL = "delete from person where id = ?";
+	
+	private static final String VERSION_PREDICATE = " and version = ?";
+	
+	// Columns a merge patch may write, by entity attribute name
+	private static final Map<String, String> PATCHABLE_COLUMNS = Map.of(
+			"firstName", "first_name", 
+			"lastName", "last_name", 
+			"email", "email", 
+			"address", "address", 
+			"gender", "gender");
+	
+	// Rows per upsert statement: 5 placeholders each keeps statements well below max_allowed_packet
+	static final int UPSERT_CHUNK_SIZE = 500;
+	
+	private static final String UPSERT_SQL_PREFIX = 
+			"insert into person (first_name, last_name, email, address, gender, version) values ";
+	
+	// Row alias syntax (MySQL 8.0.19+), replaces the deprecated VALUES() function. 
+	// Assignments run left to right, so the version is bumped first, and only when a column actually changes.
+	private static final String UPSERT_SQL_SUFFIX = 
+			" as new on duplicate key update "
+			+ "version = if(first_name <=> new.first_name and last_name <=> new.last_name "
+			+ "and address <=> new.address and gender <=> new.gender, version, version + 1), "
+			+ "first_name = new.first_name, last_name = new.last_name, address = new.address, gender = new.gender";
+	
+	// The MATCH in the ORDER BY is the same expression as in the WHERE clause, so MySQL computes the relevance once.
+	// Native SQL: JPQL has no full-text predicate
+	private static final String SEARCH_SQL = 
+			"select id, first_name, last_name, email, address, gender, version from person "
+			+ "where match(first_name, last_name, email, address) against (? in natural language mode) "
+			+ "order by match(first_name, last_name, email, address) against (? in natural language mode) desc, id "
+			+ "limit ? offset ?";
+	
+	// Not a backslash, which MySQL also reads as an escape inside string literals
+	private static final char LIKE_ESCAPE = '!';
+	
+	private final JdbcTemplate jdbcTemplate;
+	private final EntityManager entityManager;
+	
+	PersonRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.entityManager = entityManager;
+	}
+	
+	@Override
+	// The transaction keeps the unwrapped Session open outside of a caller transaction. Not read-only, so it
+	// reads from the primary when replicas are configured, see PersonRepository#findById
+	@Transactional
+	public Optional<Person> findByEmail(String email) {
+		SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+		EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Person.class);
+		NaturalIdDataAccess naturalIds = persister.getNaturalIdMapping().getCacheAccess();
+		Object key = naturalIds.generateCacheKey(email, persister, session);
+		boolean resolvedFromCache = naturalIds.contains(key);
+		
+		Optional<Person> person = entityManager.unwrap(Session.class)
+				.bySimpleNaturalId(Person.class)
+				.loadOptional(email);
+		if (!resolvedFromCache || person.filter(found -> found.getEmail().equalsIgnoreCase(email)).isPresent()) {
+			return person;
+		}
+		// The JDBC writes bypass Hibernate, so the cached resolution may point to a person whose email changed
+		// or that was deleted since. Checked here, on the loaded person, rather than evicted on every write
+		naturalIds.evict(key);
+		return entityManager.createQuery("select p from Person p where p.email = :email", Person.class)
+				.setParameter("email", email)
+				.getResultStream()
+				.findFirst();
+	}
+	
+	@Override
+	public List<Person> batchInsert(List<Person> persons) {
+		for (int from = 0; from < persons.size(); from += BATCH_SIZE) {
+			insertChunk(persons.subList(from, Math.min(from + BATCH_SIZE, persons.size())));
+		}
+		// New rows cannot be stale in the entity regions, but they may belong in cached query results
+		evictAfterCommit(Cache::evictQueryRegions);
+		return persons;
+	}
+	
+	private void insertChunk(List<Person> chunk) {
+		KeyHolder keyHolder = new GeneratedKeyHolder();
+		
+		jdbcTemplate.batchUpdate(
+				connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS), 
+				new BatchPreparedStatementSetter() {
+					
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						Person person = chunk.get(i);
+						ps.setString(1, person.getFirstName());
+						ps.setString(2, person.getLastName());
+						ps.setString(3, person.getEmail());
+						ps.setString(4, person.getAddress());
+						ps.setString(5, person.getGender());
+					}
+					
+					@Override
+					public int getBatchSize() {
+						return chunk.size();
+					}
+				}, 
+				keyHolder);
+		
+		// Generated keys come back in the same order as the batched rows
+		List<Map<String, Object>> keys = keyHolder.getKeyList();
+		for (int i = 0; i < chunk.size(); i++) {
+			Number id = (Number) keys.get(i).values().iterator().next();
+			chunk.get(i).setId(id.longValue());
+		}
+	}
+	
+	@Override
+	public int updateById(Person person, Long expectedVersion) {
+		List<Object> args = new ArrayList<>(Arrays.asList(person.getFirstName(), person.getLastName(), person.getEmail(), 
+				person.getAddress(), person.getGender(), person.getId()));
+		int updatedRows = jdbcTemplate.update(withVersion(UPDATE_SQL, expectedVersion, args), args.toArray());
+		evictAfterCommit(person.getId());
+		return updatedRows;
+	}
+	
+	@Override
+	public int patchById(Long id, Map<String, String> fields, Long expectedVersion) {
+		// Same assignments as the upsert: the version goes first, and is only bumped when a column actually changes
+		List<String> unchanged = new ArrayList<>();
+		List<String> assignments = new ArrayList<>();
+		List<Object> args = new ArrayList<>();
+		List<Object> values = new ArrayList<>();
+		fields.forEach((field, value) -> {
+			String column = PATCHABLE_COLUMNS.get(field);
+			if (column == null) {
+				throw new IllegalArgumentException("Field cannot be patched: " + field);
+			}
+			unchanged.add(column + " <=> ?");
+			assignments.add(column + " = ?");
+			args.add(value);
+			values.add(value);
+		});
+		args.addAll(values);
+		args.add(id);
+		String sql = "update person set version = if(" + String.join(" and ", unchanged) + ", version, version + 1), "
+				+ String.join(", ", assignments) + " where id = ?";
+		int updatedRows = jdbcTemplate.update(withVersion(sql, expectedVersion, args), args.toArray());
+		evictAfterCommit(id);
+		return updatedRows;
+	}
+	
+	@Override
+	public int removeById(Long id, Long expectedVersion) {
+		List<Object> args = new ArrayList<>(List.of(id));
+		int deletedRows = jdbcTemplate.update(withVersion(DELETE_SQL, expectedVersion, args), args.toArray());
+		evictAfterCommit(id);
+		return deletedRows;
+	}
+	
+	private static String withVersion(String sql, Long expectedVersion, List<Object> args) {
+		if (expectedVersion == null) {
+			return sql;
+		}
+		args.add(expectedVersion);
+		return sql + VERSION_PREDICATE;
+	}
+	
+	// Only the entry of this person, where a bulk JPQL UPDATE or DELETE would evict the whole Person region.
+	// Cached query results may match differently after the write, so they still go
+	private void evictAfterCommit(Long id) {
+		evictAfterCommit(cache -> {
+			cache.evictEntityData(Person.class, id);
+			cache.evictQueryRegions();
+		});
+	}
+	
+	@Override
+	public int upsertAllByEmail(List<Person> persons) {
+		int affectedRows = 0;
+		for (int from = 0; from < persons.size(); from += UPSERT_CHUNK_SIZE) {
+			affectedRows += upsertChunk(persons.subList(from, Math.min(from + UPSERT_CHUNK_SIZE, persons.size())));
+		}
+		evictAfterCommit(cache -> {
+			cache.evictEntityData(Person.class);
+			cache.evictNaturalIdData(Person.class);
+			cache.evictQueryRegions();
+		});
+		return affectedRows;
+	}
+	
+	private int upsertChunk(List<Person> chunk) {
+		String sql = UPSERT_SQL_PREFIX + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?, ?, ?, 0)")) + UPSERT_SQL_SUFFIX;
+		
+		List<Object> args = new ArrayList<>(chunk.size() * 5);
+		for (Person person : chunk) {
+			args.add(person.getFirstName());
+			args.add(person.getLastName());
+			args.add(person.getEmail());
+			args.add(person.getAddress());
+			args.add(person.getGender());
+		}
+		return jdbcTemplate.update(sql, args.toArray());
+	}
+	
+	@Override
+	public List<Map<String, Object>> findFieldsByIdGreaterThan(List<String> fields, Long afterId, int limit) {
+		return entityManager.createQuery(selectFields(fields, (cb, root) -> cb.greaterThan(root.get("id"), afterId)))
+				.setMaxResults(limit)
+				.getResultStream()
+				.map(tuple -> toMap(fields, tuple))
+				.toList();
+	}
+	
+	@Override
+	public Optional<Map<String, Object>> findFieldsById(List<String> fields, Long id) {
+		return entityManager.createQuery(selectFields(fields, (cb, root) -> cb.equal(root.get("id"), id)))
+				.getResultStream()
+				.findFirst()
+				.map(tuple -> toMap(fields, tuple));
+	}
+	
+	@Override
+	public List<PersonDTO> search(String query, int offset, int limit) {
+		return jdbcTemplate.query(SEARCH_SQL, 
+				(rs, rowNum) -> new PersonDTO(
+						rs.getLong("id"), 
+						rs.getString("first_name"), 
+						rs.getString("last_name"), 
+						rs.getString("email"), 
+						rs.getString("address"), 
+						rs.getString("gender"), 
+						rs.getLong("version")), 
+				query, query, limit, offset);
+	}
+	
+	@Override
+	public List<PersonDTO> findDTOsByFilter(PersonFilter filter, PersonSort sort, String afterValue, Long afterId, int limit) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<PersonDTO> query = cb.createQuery(PersonDTO.class);
+		Root<Person> root = query.from(Person.class);
+		
+		// Only equalities and a left-anchored LIKE: each of them can seek into an index
+		List<Predicate> predicates = new ArrayList<>();
+		if (filter.gender() != null) {
+			predicates.add(cb.equal(root.get("gender"), filter.gender()));
+		}
+		if (filter.lastName() != null) {
+			predicates.add(cb.equal(root.get("lastName"), filter.lastName()));
+		}
+		if (filter.firstNamePrefix() != null) {
+			predicates.add(cb.like(root.get("firstName"), escapeLike(filter.firstNamePrefix()) + "%", LIKE_ESCAPE));
+		}
+		if (filter.emailDomain() != null) {
+			predicates.add(cb.equal(root.get("emailDomain"), filter.emailDomain()));
+		}
+		if (afterId != null) {
+			predicates.add(after(cb, root, sort, afterValue, afterId));
+		}
+		
+		List<Order> order = new ArrayList<>();
+		if (!sort.isById()) {
+			order.add(sort.descending() ? cb.desc(root.get(sort.field())) : cb.asc(root.get(sort.field())));
+		}
+		order.add(sort.descending() ? cb.desc(root.get("id")) : cb.asc(root.get("id"))); // Tie breaker, unique
+		
+		query.select(cb.construct(PersonDTO.class, root.get("id"), root.get("firstName"), root.get("lastName"),
+						root.get("email"), root.get("address"), root.get("gender"), root.get("version")))
+				.where(predicates.toArray(Predicate[]::new))
+				.orderBy(order);
+		return entityManager.createQuery(query)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+	
+	// Rows after (afterValue, afterId) in the sort order. Written as "value >= ? and (value > ? or id > ?)" 
+	// rather than with an OR alone, so MySQL can still range scan the index on the sort field
+	private static Predicate after(CriteriaBuilder cb, Root<Person> root, PersonSort sort, String afterValue, Long afterId) {
+		Path<Long> id = root.get("id");
+		if (sort.isById()) {
+			return sort.descending() ? cb.lessThan(id, afterId) : cb.greaterThan(id, afterId);
+		}
+		Path<String> value = root.get(sort.field());
+		return sort.descending()
+				? cb.and(cb.lessThanOrEqualTo(value, afterValue), cb.or(cb.lessThan(value, afterValue), cb.lessThan(id, afterId)))
+				: cb.and(cb.greaterThanOrEqualTo(value, afterValue), cb.or(cb.greaterThan(value, afterValue), cb.greaterThan(id, afterId)));
+	}
+	
+	private static String escapeLike(String value) {
+		return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+	}
+	
+	/**
+	 * JDBC writes are invisible to the second-level cache, so the affected regions are evicted here. 
+	 * Evicting after commit rather than now keeps a concurrent reader from caching the old rows again 
+	 * before the new ones are visible.
+	 */
+	private void evictAfterCommit(Consumer<Cache> eviction) {
+		Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+		AfterCommit.run(() -> eviction.accept(cache));
+	}
+	
+	// Tuple query instead of an interface projection: the column list is only known at runtime
+	private CriteriaQuery<Tuple> selectFields(List<String> fields, 
+			BiFunction<CriteriaBuilder, Root<Person>, Predicate> restriction) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Person> root = query.from(Person.class);
+		
+		return query
+				.multiselect(fields.stream().<Selection<?>>map(field -> root.get(field).alias(field)).toList())
+				.where(restriction.apply(cb, root))
+				.orderBy(cb.asc(root.get("id")));
+	}
+	
+	private static Map<String, Object> toMap(List<String> fields, Tuple tuple) {
+		Map<String, Object> row = new LinkedHashMap<>();
+		for (String field : fields) {
+			row.put(field, tuple.get(field));
+		}
+		return row;
+	}
+}
@@ -0,0 +1,28 @@
+package io.github.joaoVitorLeal.repositories;
+
+import java.util.Set;
+
+/**
+ * Order of a filtered listing: one sortable field, then the id as a tie breaker, both in the same direction.
+ * 
+ * @param field entity attribute, one of {@link #FIELDS}
+ */
+public record PersonSort(String field, boolean descending) {
+	
+	public static final String ID = "id";
+	
+	// Each of them leads an index (the primary key for the id), see the indexes of Person
+	public static final Set<String> FIELDS = Set.of(ID, "firstName", "lastName");
+	
+	public static final PersonSort BY_ID = new PersonSort(ID, false);
+	
+	public PersonSort {
+		if (!FIELDS.contains(field)) {
+			throw new IllegalArgumentException("Not a sortable field: " + field);
+		}
+	}
+	
+	public boolean isById() {
+		return ID.equals(field);
+	}
+}
@@ -0,0 +1,253 @@
+package io.github.joaoVitorLeal.repositories;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.model.Person;
+import io.github.joaoVitorLeal.model.PersonChangeLog.Operation;
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking access to the person table for the reactive stack ("reactive" profile), through R2DBC.
+ * Runs the same statements as {@link PersonRepository} against the same schema. Rows are mapped by hand,
+ * since the annotations of {@link Person} describe its JPA mapping.
+ */
+@Repository
+@Profile("reactive")
+public class ReactivePersonRepository {
+	
+	private static final String COLUMNS = "id, first_name, last_name, email, address, gender, version";
+	
+	// Rows fetched per round-trip by the streaming read: the next batch is only requested when the subscriber
+	// has consumed the previous one, so a slow client slows the query down instead of filling the memory
+	private static final int STREAM_FETCH_SIZE = 500;
+	
+	private final DatabaseClient client;
+	
+	public ReactivePersonRepository(DatabaseClient client) {
+		this.client = client;
+	}
+	
+	public Mono<Person> findById(Long id) {
+		return client.sql("select " + COLUMNS + " from person where id = :id")
+				.bind("id", id)
+				.map(ReactivePersonRepository::toPerson)
+				.one();
+	}
+	
+	public Mono<PersonDTO> findByEmail(String email) {
+		return client.sql("select " + COLUMNS + " from person where email = :email")
+				.bind("email", email)
+				.map(ReactivePersonRepository::toPersonDTO)
+				.one();
+	}
+	
+	// Primary key lookups in one round-trip, same as PersonRepository.findDTOsByIdIn
+	public Flux<PersonDTO> findDTOsByIdIn(Collection<Long> ids) {
+		return client.sql("select " + COLUMNS + " from person where id in (:ids)")
+				.bind("ids", ids)
+				.map(ReactivePersonRepository::toPersonDTO)
+				.all();
+	}
+	
+	// Keyset pagination, same as PersonRepository.findDTOsByIdGreaterThan
+	public Flux<PersonDTO> findDTOsByIdGreaterThan(Long afterId, int limit) {
+		return client.sql("select " + COLUMNS + " from person where id > :afterId order by id limit :limit")
+				.bind("afterId", afterId)
+				.bind("limit", limit)
+				.map(ReactivePersonRepository::toPersonDTO)
+				.all();
+	}
+	
+	/**
+	 * @param fields property names already checked against the selectable fields
+	 */
+	public Flux<Map<String, Object>> findFieldsByIdGreaterThan(List<String> fields, Long afterId, int limit) {
+		return client.sql("select " + columnsOf(fields) + " from person where id > :afterId order by id limit :limit")
+				.bind("afterId", afterId)
+				.bind("limit", limit)
+				.map(row -> toFields(row, fields))
+				.all();
+	}
+	
+	public Mono<Map<String, Object>> findFieldsById(List<String> fields, Long id) {
+		return client.sql("select " + columnsOf(fields) + " from person where id = :id")
+				.bind("id", id)
+				.map(row -> toFields(row, fields))
+				.one();
+	}
+	
+	// Full-text search served by the FULLTEXT index, same statement as PersonRepository.search
+	public Flux<PersonDTO> search(String query, int offset, int limit) {
+		return client.sql("select " + COLUMNS + " from person "
+				+ "where match(first_name, last_name, email, address) against (:query in natural language mode) "
+				+ "order by match(first_name, last_name, email, address) against (:query in natural language mode) desc, id "
+				+ "limit :limit offset :offset")
+				.bind("query", query)
+				.bind("limit", limit)
+				.bind("offset", offset)
+				.map(ReactivePersonRepository::toPersonDTO)
+				.all();
+	}
+	
+	public Flux<PersonDTO> streamAll() {
+		return client.sql("select " + COLUMNS + " from person order by id")
+				.filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+				.map(ReactivePersonRepository::toPersonDTO)
+				.all();
+	}
+	
+	/**
+	 * Inserts the person and sets its generated id and initial version.
+	 */
+	public Mono<Person> insert(Person person) {
+		var statement = client.sql("insert into person (first_name, last_name, email, address, gender, version) "
+				+ "values (:firstName, :lastName, :email, :address, :gender, 0)");
+		return bindFields(statement, person)
+				.filter(insert -> insert.returnGeneratedValues("id"))
+				.map(row -> row.get("id", Long.class))
+				.one()
+				.map(id -> {
+					person.setId(id);
+					person.setVersion(0L);
+					return person;
+				});
+	}
+	
+	/**
+	 * Update of every column in one statement, same as {@link PersonRepositoryCustom#updateById(Person, Long)}.
+	 *
+	 * @param expectedVersion version the row must still have, or null to update it whatever its version
+	 * @return the number of matched rows, 0 or 1
+	 */
+	public Mono<Long> updateById(Person person, Long expectedVersion) {
+		var statement = client.sql("update person set first_name = :firstName, last_name = :lastName, email = :email, "
+				+ "address = :address, gender = :gender, version = version + 1 where id = :id" + versionPredicate(expectedVersion));
+		return bindVersion(bindFields(statement, person).bind("id", person.getId()), expectedVersion)
+				.fetch()
+				.rowsUpdated();
+	}
+	
+	/**
+	 * Update of the patched columns in one statement, same as {@link PersonRepositoryCustom#patchById(Long, Map, Long)}: 
+	 * the version is only incremented when one of them changes.
+	 *
+	 * @param fields property names already checked against the patchable fields, with their new values
+	 * @return the number of matched rows, 0 or 1, changed or not
+	 */
+	public Mono<Long> patchById(Long id, Map<String, String> fields, Long expectedVersion) {
+		String unchanged = fields.keySet().stream()
+				.map(field -> columnOf(field) + " <=> :" + field)
+				.collect(Collectors.joining(" and "));
+		String assignments = fields.keySet().stream()
+				.map(field -> columnOf(field) + " = :" + field)
+				.collect(Collectors.joining(", "));
+		GenericExecuteSpec statement = client.sql("update person set version = if(" + unchanged + ", version, version + 1), "
+				+ assignments + " where id = :id" + versionPredicate(expectedVersion))
+				.bind("id", id);
+		for (Map.Entry<String, String> field : fields.entrySet()) {
+			statement = statement.bind(field.getKey(), field.getValue());
+		}
+		return bindVersion(statement, expectedVersion)
+				.fetch()
+				.rowsUpdated();
+	}
+	
+	/**
+	 * @param expectedVersion version the row must still have, or null to delete it whatever its version
+	 * @return the number of deleted rows, 0 or 1
+	 */
+	public Mono<Long> removeById(Long id, Long expectedVersion) {
+		return bindVersion(client.sql("delete from person where id = :id" + versionPredicate(expectedVersion)).bind("id", id), expectedVersion)
+				.fetch()
+				.rowsUpdated();
+	}
+	
+	private static String versionPredicate(Long expectedVersion) {
+		return expectedVersion == null ? "" : " and version = :version";
+	}
+	
+	private static GenericExecuteSpec bindVersion(GenericExecuteSpec statement, Long expectedVersion) {
+		return expectedVersion == null ? statement : statement.bind("version", expectedVersion);
+	}
+	
+	// Same entry as PersonChangeTracker writes, so the other instances see writes of both stacks
+	public Mono<Void> appendChange(Long personId, Long version, Operation operation) {
+		var statement = client.sql("insert into person_change_log (person_id, version, operation, changed_at) "
+				+ "values (:personId, :version, :operation, current_timestamp)")
+				.bind("personId", personId)
+				.bind("operation", operation.name());
+		return (version == null ? statement.bindNull("version", Long.class) : statement.bind("version", version))
+				.then();
+	}
+	
+	public Mono<String> findTableVersion() {
+		return client.sql(PersonChangeLogRepository.TABLE_VERSION_QUERY)
+				.map(row -> row.get(0, String.class))
+				.one();
+	}
+	
+	private static GenericExecuteSpec bindFields(GenericExecuteSpec statement, Person person) {
+		statement = bind(statement, "firstName", person.getFirstName());
+		statement = bind(statement, "lastName", person.getLastName());
+		statement = bind(statement, "email", person.getEmail());
+		statement = bind(statement, "address", person.getAddress());
+		return bind(statement, "gender", person.getGender());
+	}
+	
+	// A missing field reaches the NOT NULL constraint, as it does through JPA
+	private static GenericExecuteSpec bind(GenericExecuteSpec statement, String name, String value) {
+		return value == null ? statement.bindNull(name, String.class) : statement.bind(name, value);
+	}
+	
+	private static Person toPerson(Readable row) {
+		Person person = new Person(
+				row.get("id", Long.class),
+				row.get("first_name", String.class),
+				row.get("last_name", String.class),
+				row.get("email", String.class),
+				row.get("address", String.class),
+				row.get("gender", String.class));
+		person.setVersion(row.get("version", Long.class));
+		return person;
+	}
+	
+	private static PersonDTO toPersonDTO(Readable row) {
+		return new PersonDTO(
+				row.get("id", Long.class),
+				row.get("first_name", String.class),
+				row.get("last_name", String.class),
+				row.get("email", String.class),
+				row.get("address", String.class),
+				row.get("gender", String.class),
+				row.get("version", Long.class));
+	}
+	
+	private static Map<String, Object> toFields(Readable row, List<String> fields) {
+		Map<String, Object> values = new LinkedHashMap<>();
+		for (String field : fields) {
+			values.put(field, row.get(columnOf(field)));
+		}
+		return values;
+	}
+	
+	private static String columnsOf(List<String> fields) {
+		return fields.stream().map(ReactivePersonRepository::columnOf).collect(Collectors.joining(", "));
+	}
+	
+	// firstName -> first_name, the naming used by every column of the table
+	private static String columnOf(String field) {
+		return field.replaceAll("([A-Z])", "_$1").toLowerCase();
+	}
+}
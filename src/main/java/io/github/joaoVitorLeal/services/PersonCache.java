@@ -0,0 +1,178 @@
+package io.github.joaoVitorLeal.services;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.github.joaoVitorLeal.config.AfterCommit;
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.model.Person;
+import io.github.joaoVitorLeal.repositories.PersonRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Read-through cache of persons by id and of person ids by email, in front of the repository.
+ *
+ * Caffeine bounds both caches by size (W-TinyLFU eviction) and loads each missing key once: concurrent
+ * readers of the same key wait for that single load instead of all querying the database. Entries older
+ * than the refresh interval are reloaded in the background on the next read, while the old value is still served.
+ * Missing persons are not cached. Cached persons are immutable records, shared between requests.
+ *
+ * Background refreshes run on the application task executor, made of virtual threads when they are enabled,
+ * rather than on the common fork-join pool, which is sized for CPU work and not for blocking JDBC calls.
+ */
+@Component
+public class PersonCache {
+	
+	private final LoadingCache<Long, PersonDTO> personsById;
+	private final LoadingCache<String, Long> idsByEmail;
+	
+	public PersonCache(PersonRepository repository, ObjectProvider<MeterRegistry> meterRegistry,
+			@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) ObjectProvider<Executor> refreshExecutor,
+			@Value("${person.cache.maximum-size:10000}") long maximumSize,
+			@Value("${person.cache.refresh-after-write:1m}") Duration refreshAfterWrite,
+			@Value("${person.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+		
+		Executor executor = refreshExecutor.getIfAvailable(ForkJoinPool::commonPool);
+		
+		this.personsById = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.refreshAfterWrite(refreshAfterWrite)
+				.expireAfterWrite(expireAfterWrite) // Bounds staleness for keys that are not read often enough to be refreshed
+				.recordStats()
+				.executor(executor)
+				.build(new CacheLoader<Long, PersonDTO>() {
+					@Override
+					public PersonDTO load(Long id) {
+						return repository.findDTOById(id).orElse(null);
+					}
+					
+					// Misses of a multi-get are loaded with "in (...)" queries rather than one query per id
+					@Override
+					public Map<Long, PersonDTO> loadAll(Set<? extends Long> ids) {
+						Map<Long, PersonDTO> persons = new HashMap<>();
+						List<Long> pending = List.copyOf(ids);
+						for (int from = 0; from < pending.size(); from += PersonService.IN_LIST_CHUNK_SIZE) {
+							List<Long> chunk = pending.subList(from, Math.min(from + PersonService.IN_LIST_CHUNK_SIZE, pending.size()));
+							repository.findDTOsByIdIn(chunk).forEach(person -> persons.put(person.id(), person));
+						}
+						return persons;
+					}
+				});
+		
+		this.idsByEmail = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.refreshAfterWrite(refreshAfterWrite)
+				.expireAfterWrite(expireAfterWrite)
+				.recordStats()
+				.executor(executor)
+				// Resolved through the natural id cache of Person (region "person-natural-id") before querying
+				.build(email -> repository.findByEmail(email).map(Person::getId).orElse(null));
+		
+		meterRegistry.ifAvailable(registry -> {
+			CaffeineCacheMetrics.monitor(registry, personsById, "persons.by-id");
+			CaffeineCacheMetrics.monitor(registry, idsByEmail, "persons.id-by-email");
+		});
+	}
+	
+	/**
+	 * @return the person, or null if there is no person with this id
+	 */
+	public PersonDTO findById(Long id) {
+		return personsById.get(id);
+	}
+	
+	/**
+	 * Does not load the person when it is not cached.
+	 * 
+	 * @return the cached person, or null if it is not cached
+	 */
+	public PersonDTO findCachedById(Long id) {
+		return id == null ? null : personsById.getIfPresent(id);
+	}
+	
+	/**
+	 * Cached persons are served from memory, the others are loaded together and cached.
+	 * 
+	 * @return the persons found, by id: ids without a person are absent from the map
+	 */
+	public Map<Long, PersonDTO> findAllById(Collection<Long> ids) {
+		return personsById.getAll(ids);
+	}
+	
+	/**
+	 * @return the person, or null if no person is registered with this email
+	 */
+	public PersonDTO findByEmail(String email) {
+		// Keyed like the case-insensitive lookup behind it, so "A@x.com" and "a@x.com" share one entry
+		String key = PersonService.normalizeEmail(email);
+		Long id = idsByEmail.get(key);
+		if (id == null) {
+			return null;
+		}
+		PersonDTO person = personsById.get(id);
+		if (person == null || !key.equals(PersonService.normalizeEmail(person.email()))) {
+			// The email moved to another person (or was released) since it was cached
+			idsByEmail.invalidate(key);
+			id = idsByEmail.get(key);
+			return id == null ? null : personsById.get(id);
+		}
+		return person;
+	}
+	
+	/**
+	 * Invalidates one person and the emails it was cached under, once the current transaction commits.
+	 * Invalidating before the commit would let a concurrent read cache the old row again.
+	 */
+	public void evictAfterCommit(Long id, String... emails) {
+		AfterCommit.run(() -> {
+			personsById.invalidate(id);
+			idsByEmail.invalidateAll(Arrays.stream(emails).map(PersonService::normalizeEmail).toList());
+		});
+	}
+	
+	/**
+	 * Invalidates every person registered with one of the emails, for writes that only know the emails (upserts).
+	 */
+	public void evictEmailsAfterCommit(Collection<String> emails) {
+		Set<String> evicted = emails.stream().map(PersonService::normalizeEmail).collect(Collectors.toSet());
+		AfterCommit.run(() -> {
+			personsById.asMap().values().removeIf(person -> evicted.contains(PersonService.normalizeEmail(person.email())));
+			idsByEmail.invalidateAll(evicted);
+		});
+	}
+	
+	/**
+	 * Invalidates persons written by another instance, right away: their transactions are already committed.
+	 * The emails they were cached under are checked against the reloaded person on the next lookup by email.
+	 */
+	public void evictAll(Collection<Long> ids) {
+		personsById.invalidateAll(ids);
+	}
+	
+	/**
+	 * Invalidates every cached person, when the changes made by other instances can no longer be tracked one by one.
+	 */
+	public void evictAll() {
+		personsById.invalidateAll();
+		idsByEmail.invalidateAll();
+	}
+}
@@ -0,0 +1,191 @@
+package io.github.joaoVitorLeal.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.joaoVitorLeal.model.Person;
+import io.github.joaoVitorLeal.model.PersonChangeLog;
+import io.github.joaoVitorLeal.repositories.PersonChangeLogRepository;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Keeps the local caches of this instance coherent with the writes of the other instances.
+ *
+ * Every instance tails person_change_log from the last entry it has seen and evicts the persons written since,
+ * from the second-level cache and from {@link PersonCache}, and reloads their names in {@link PersonNameIndex}. Staleness across instances is bounded by the poll interval.
+ * Writes of this instance are evicted again when they are read from the log, which only costs a reload.
+ *
+ * Sequence values are taken before commit, so a slower transaction can commit below an entry already seen.
+ * The skipped values are remembered as gaps and looked up again on every poll until the gap timeout,
+ * which must be longer than the longest write transaction. Rolled back writes leave gaps that never fill, and so 
+ * do the multi-row appends, for which InnoDB (innodb_autoinc_lock_mode=2) may reserve more values than it uses. 
+ * Those gaps simply expire; when more are open than can be tracked, the oldest are given up first. Only a single 
+ * jump too wide to track evicts every cached person.
+ */
+@Component
+public class PersonChangeLogPoller {
+	
+	private static final Logger logger = Logger.getLogger(PersonChangeLogPoller.class.getName());
+	
+	private static final int BATCH_SIZE = 1000;
+	
+	// Open gaps looked up on every poll. A jump over more values than this at once is not tracked, 
+	// looking its gaps up would cost more than rebuilding the caches
+	private static final int MAX_GAPS = 10000;
+	
+	private final PersonChangeLogRepository repository;
+	private final PersonCache personCache;
+	private final PersonNameIndex nameIndex;
+	private final EntityManagerFactory entityManagerFactory;
+	private final Duration gapTimeout;
+	private final long retainedEntries;
+	
+	// Nothing is cached yet when the application starts, so entries older than the current tail are skipped
+	private long lastSeq;
+	// Not a synchronized method: a virtual thread blocking on JDBC inside a monitor would pin its carrier
+	private final ReentrantLock pollLock = new ReentrantLock();
+	// In the order they were found, which is also the order they expire in
+	private final Map<Long, Instant> gaps = new LinkedHashMap<>();
+	
+	public PersonChangeLogPoller(PersonChangeLogRepository repository, PersonCache personCache,
+			PersonNameIndex nameIndex, EntityManagerFactory entityManagerFactory,
+			@Value("${person.change-log.gap-timeout:5m}") Duration gapTimeout,
+			@Value("${person.change-log.retained-entries:100000}") long retainedEntries) {
+		this.repository = repository;
+		this.personCache = personCache;
+		this.nameIndex = nameIndex;
+		this.entityManagerFactory = entityManagerFactory;
+		this.gapTimeout = gapTimeout;
+		this.retainedEntries = retainedEntries;
+		this.lastSeq = repository.findMaxSeq();
+	}
+	
+	@Scheduled(fixedDelayString = "${person.change-log.poll-interval:1s}")
+	public void poll() {
+		pollLock.lock();
+		try {
+			pollLocked();
+		} finally {
+			pollLock.unlock();
+		}
+	}
+	
+	private void pollLocked() {
+		Instant now = Instant.now();
+		List<PersonChangeLog> changes = new ArrayList<>();
+		
+		expireGaps(now.minus(gapTimeout));
+		List<Long> pending = List.copyOf(gaps.keySet());
+		for (int from = 0; from < pending.size(); from += PersonService.IN_LIST_CHUNK_SIZE) {
+			List<Long> chunk = pending.subList(from, Math.min(from + PersonService.IN_LIST_CHUNK_SIZE, pending.size()));
+			for (PersonChangeLog lateChange : repository.findBySeqIn(chunk)) {
+				gaps.remove(lateChange.getSeq());
+				changes.add(lateChange);
+			}
+		}
+		
+		List<PersonChangeLog> tail;
+		boolean untracked = false;
+		int givenUp = 0;
+		do {
+			tail = repository.findBySeqGreaterThanOrderBySeqAsc(lastSeq, Limit.of(BATCH_SIZE));
+			for (PersonChangeLog change : tail) {
+				long skipped = change.getSeq() - lastSeq - 1;
+				if (skipped > MAX_GAPS) {
+					untracked = true;
+				} else {
+					givenUp += dropOldestGaps(skipped);
+					for (long missing = lastSeq + 1; missing < change.getSeq(); missing++) {
+						gaps.put(missing, now);
+					}
+				}
+				lastSeq = change.getSeq();
+				changes.add(change);
+			}
+		} while (tail.size() == BATCH_SIZE);
+		
+		if (givenUp > 0) {
+			logger.info("Gave up on " + givenUp + " gaps of the person change log before their timeout to track newer ones.");
+		}
+		if (untracked) {
+			logger.warning("Too many gaps in the person change log, evicting every cached person.");
+			gaps.clear();
+			evictAll();
+		} else if (!changes.isEmpty()) {
+			evict(changes);
+		}
+	}
+	
+	/**
+	 * Deletes the entries every instance has already read. Runs on every instance, later runs find nothing to delete.
+	 */
+	@Scheduled(fixedDelayString = "${person.change-log.cleanup-interval:1h}",
+			initialDelayString = "${person.change-log.cleanup-interval:1h}")
+	@Transactional
+	public void deleteOldEntries() {
+		long upToSeq = repository.findMaxSeq() - retainedEntries;
+		if (upToSeq > 0) {
+			int deleted = repository.deleteBySeqLessThanEqual(upToSeq);
+			logger.info("Deleted " + deleted + " old entries of the person change log.");
+		}
+	}
+	
+	private void expireGaps(Instant expired) {
+		Iterator<Instant> oldestFirst = gaps.values().iterator();
+		while (oldestFirst.hasNext() && oldestFirst.next().isBefore(expired)) {
+			oldestFirst.remove();
+		}
+	}
+	
+	// The longer a gap stays open, the less likely a write is still about to commit into it
+	private int dropOldestGaps(long needed) {
+		int dropped = 0;
+		Iterator<Long> oldestFirst = gaps.keySet().iterator();
+		while (gaps.size() + needed > MAX_GAPS && oldestFirst.hasNext()) {
+			oldestFirst.next();
+			oldestFirst.remove();
+			dropped++;
+		}
+		return dropped;
+	}
+	
+	private void evict(List<PersonChangeLog> changes) {
+		Set<Long> ids = changes.stream().map(PersonChangeLog::getPersonId).collect(Collectors.toSet());
+		
+		// The second-level cache goes first: PersonCache reloads from it
+		Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+		ids.forEach(id -> cache.evictEntityData(Person.class, id));
+		// Natural id resolutions are left in place: PersonRepository#findByEmail checks them against the reloaded person
+		cache.evictQueryRegions();
+		
+		personCache.evictAll(ids);
+		nameIndex.refresh(ids);
+	}
+	
+	private void evictAll() {
+		Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+		cache.evictEntityData(Person.class);
+		cache.evictNaturalIdData(Person.class);
+		cache.evictQueryRegions();
+		
+		personCache.evictAll();
+		nameIndex.rebuild();
+	}
+}
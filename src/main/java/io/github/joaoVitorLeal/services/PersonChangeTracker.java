@@ -0,0 +1,66 @@
+package io.github.joaoVitorLeal.services;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.joaoVitorLeal.model.Person;
+import io.github.joaoVitorLeal.model.PersonChangeLog;
+import io.github.joaoVitorLeal.model.PersonChangeLog.Operation;
+import io.github.joaoVitorLeal.repositories.PersonChangeLogRepository;
+
+/**
+ * Appends every write of {@link PersonService} to the person_change_log table.
+ * Must run inside the transaction of the write, so the log entry commits (or rolls back) with it.
+ */
+@Component
+public class PersonChangeTracker {
+	
+	private final PersonChangeLogRepository repository;
+	
+	public PersonChangeTracker(PersonChangeLogRepository repository) {
+		this.repository = repository;
+	}
+	
+	/**
+	 * Changes whenever any person is written. Cheap enough to be checked on every conditional GET.
+	 */
+	@Transactional(readOnly = true)
+	public String tableVersion() {
+		return repository.findTableVersion();
+	}
+	
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void created(Person person) {
+		repository.save(new PersonChangeLog(person.getId(), person.getVersion(), Operation.CREATE));
+	}
+	
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void createdAll(List<Long> ids) {
+		for (int from = 0; from < ids.size(); from += PersonService.IN_LIST_CHUNK_SIZE) {
+			repository.appendForIds(ids.subList(from, Math.min(from + PersonService.IN_LIST_CHUNK_SIZE, ids.size())), Operation.CREATE.name());
+		}
+	}
+	
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void updated(Long id) {
+		repository.appendForIds(List.of(id), Operation.UPDATE.name());
+	}
+	
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void upsertedAll(Collection<String> emails) {
+		List<String> distinctEmails = emails.stream().distinct().toList();
+		for (int from = 0; from < distinctEmails.size(); from += PersonService.IN_LIST_CHUNK_SIZE) {
+			repository.appendForEmails(distinctEmails.subList(from, Math.min(from + PersonService.IN_LIST_CHUNK_SIZE, distinctEmails.size())), 
+					Operation.UPSERT.name());
+		}
+	}
+	
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void deleted(Long id) {
+		repository.save(new PersonChangeLog(id, null, Operation.DELETE));
+	}
+}
@@ -0,0 +1,144 @@
+package io.github.joaoVitorLeal.services;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.github.joaoVitorLeal.config.AfterCommit;
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.dto.PersonStats;
+import io.github.joaoVitorLeal.repositories.PersonCount;
+import io.github.joaoVitorLeal.repositories.PersonRepository;
+
+/**
+ * In-memory counts of persons in total, by gender and by email domain, so the stats cost O(1) instead of a scan.
+ *
+ * The counters are loaded with one aggregate query when the application is ready. PersonService then adjusts them 
+ * after each committed create, update and delete whose previous row it knows. Writes it cannot diff (batch upserts, 
+ * updates and deletes of persons that were not cached, the reactive stack, other instances) are picked up by the periodic reconciliation, which recounts the table and replaces the counters. 
+ * A write committed while the aggregate runs may be counted off by one until the next reconciliation.
+ */
+@Component
+public class PersonCounters {
+	
+	private static final Logger logger = Logger.getLogger(PersonCounters.class.getName());
+	
+	private final PersonRepository repository;
+	
+	private volatile Counters counters = new Counters();
+	
+	public PersonCounters(PersonRepository repository) {
+		this.repository = repository;
+	}
+	
+	/**
+	 * @param topDomains number of email domains to return, the most common ones
+	 */
+	public PersonStats stats(int topDomains) {
+		Counters current = counters;
+		Map<String, Long> byGender = new TreeMap<>();
+		current.byGender.forEach((gender, persons) -> {
+			if (persons.sum() > 0) {
+				byGender.put(gender, persons.sum());
+			}
+		});
+		Map<String, Long> byEmailDomain = new LinkedHashMap<>();
+		current.sortedDomains().stream()
+				.limit(topDomains)
+				.forEach(entry -> byEmailDomain.put(entry.getKey(), entry.getValue()));
+		return new PersonStats(current.total.sum(), byGender, byEmailDomain);
+	}
+	
+	/**
+	 * Recounts every person and replaces the counters, correcting any drift.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedDelayString = "${person.stats.reconcile-interval:5m}",
+			initialDelayString = "${person.stats.reconcile-interval:5m}")
+	public void reconcile() {
+		Counters recounted = new Counters();
+		for (PersonCount count : repository.countByGenderAndEmailDomain()) {
+			recounted.add(count.gender(), count.emailDomain(), count.persons());
+		}
+		long drift = recounted.total.sum() - counters.total.sum();
+		counters = recounted;
+		logger.info("Counted " + recounted.total.sum() + " people, total was off by " + drift + ".");
+	}
+	
+	/**
+	 * Moves the person from the counters of its previous values to those of its new values once the current 
+	 * transaction commits: a rolled back write leaves the counters untouched.
+	 * 
+	 * @param before the person before the write, null for a create
+	 * @param after  the person after the write, null for a delete
+	 */
+	public void changeAfterCommit(PersonDTO before, PersonDTO after) {
+		AfterCommit.run(() -> {
+			Counters current = counters;
+			if (before != null) {
+				current.add(before.gender(), emailDomain(before.email()), -1);
+			}
+			if (after != null) {
+				current.add(after.gender(), emailDomain(after.email()), 1);
+			}
+		});
+	}
+	
+	// Same as the generated email_domain column: what follows the last '@'
+	static String emailDomain(String email) {
+		return email.substring(email.lastIndexOf('@') + 1);
+	}
+	
+	private static final class Counters {
+		
+		private final LongAdder total = new LongAdder();
+		// Genders and domains are case insensitive, as the column collation (and so the "group by") is
+		private final Map<String, LongAdder> byGender = new ConcurrentHashMap<>();
+		private final Map<String, LongAdder> byEmailDomain = new ConcurrentHashMap<>();
+		// Bumped by every add, tells whether the sorted domains are still current
+		private final AtomicLong changes = new AtomicLong();
+		private volatile SortedDomains sortedDomains = new SortedDomains(-1, List.of());
+		
+		void add(String gender, String emailDomain, long persons) {
+			total.add(persons);
+			byGender.computeIfAbsent(gender.toLowerCase(Locale.ROOT), key -> new LongAdder()).add(persons);
+			byEmailDomain.computeIfAbsent(emailDomain.toLowerCase(Locale.ROOT), key -> new LongAdder()).add(persons);
+			changes.incrementAndGet();
+		}
+		
+		/**
+		 * Domains with at least one person, the most common first. Sorted again only after a counter changed, 
+		 * so repeated stats between writes do not sort every domain each time.
+		 */
+		List<Map.Entry<String, Long>> sortedDomains() {
+			SortedDomains snapshot = sortedDomains;
+			// Read before sorting: a change made while sorting leaves the snapshot stale, and the next call sorts again
+			long current = changes.get();
+			if (snapshot.changes() == current) {
+				return snapshot.domains();
+			}
+			List<Map.Entry<String, Long>> domains = byEmailDomain.entrySet().stream()
+					.map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+					.filter(entry -> entry.getValue() > 0)
+					.sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+					.toList();
+			sortedDomains = new SortedDomains(current, domains);
+			return domains;
+		}
+	}
+	
+	private record SortedDomains(long changes, List<Map.Entry<String, Long>> domains) {
+	}
+}
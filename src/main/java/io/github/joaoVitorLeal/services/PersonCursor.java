@@ -0,0 +1,101 @@
+package io.github.joaoVitorLeal.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import io.github.joaoVitorLeal.exceptions.InvalidRequestException;
+
+/**
+ * Encodes the position of a keyset page as an opaque, URL-safe token.
+ * Clients must treat the value as opaque so the format can change without breaking them.
+ */
+final class PersonCursor {
+	
+	private static final String PREFIX = "id:";
+	
+	// Search results are ordered by relevance, which no index provides, so their pages are addressed by offset
+	private static final String OFFSET_PREFIX = "offset:";
+	
+	// Value last: it may contain the separator
+	private static final String KEY_PREFIX = "key:";
+	
+	private PersonCursor() {}
+	
+	static String encode(Long lastId) {
+		return encode(PREFIX, lastId);
+	}
+	
+	static Long decode(String cursor) {
+		return decode(PREFIX, cursor);
+	}
+	
+	static String encodeOffset(int offset) {
+		return encode(OFFSET_PREFIX, offset);
+	}
+	
+	static int decodeOffset(String cursor) {
+		long offset = decode(OFFSET_PREFIX, cursor);
+		if (offset > Integer.MAX_VALUE) {
+			throw new InvalidRequestException("Invalid cursor: " + cursor);
+		}
+		return (int) offset;
+	}
+	
+	/**
+	 * Position in a listing sorted by another field than the id: the value of that field and the id of the last row.
+	 * The field is part of the token, so a cursor cannot be reused with another sort.
+	 */
+	record Key(String value, Long id) {}
+	
+	static String encodeKey(String field, String value, Long id) {
+		return Base64.getUrlEncoder()
+				.withoutPadding()
+				.encodeToString((KEY_PREFIX + field + ":" + id + ":" + value).getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * @return the position, or null for the first page
+	 */
+	static Key decodeKey(String field, String cursor) {
+		if (cursor == null || cursor.isBlank()) {
+			return null;
+		}
+		String prefix = KEY_PREFIX + field + ":";
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int separator = decoded.indexOf(':', prefix.length());
+			if (!decoded.startsWith(prefix) || separator < 0) {
+				throw new InvalidRequestException("Invalid cursor: " + cursor);
+			}
+			Long id = Long.valueOf(decoded.substring(prefix.length(), separator));
+			return new Key(decoded.substring(separator + 1), id);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidRequestException("Invalid cursor: " + cursor);
+		}
+	}
+	
+	private static String encode(String prefix, long position) {
+		return Base64.getUrlEncoder()
+				.withoutPadding()
+				.encodeToString((prefix + position).getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private static long decode(String prefix, String cursor) {
+		if (cursor == null || cursor.isBlank()) {
+			return 0L; // First page: ids are always positive, offsets start at zero
+		}
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (!decoded.startsWith(prefix)) {
+				throw new InvalidRequestException("Invalid cursor: " + cursor);
+			}
+			long position = Long.parseLong(decoded.substring(prefix.length()));
+			if (position < 0) {
+				throw new InvalidRequestException("Invalid cursor: " + cursor);
+			}
+			return position;
+		} catch (IllegalArgumentException e) { // Also covers NumberFormatException
+			throw new InvalidRequestException("Invalid cursor: " + cursor);
+		}
+	}
+}
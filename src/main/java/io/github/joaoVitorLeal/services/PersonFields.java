@@ -0,0 +1,36 @@
+package io.github.joaoVitorLeal.services;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.github.joaoVitorLeal.exceptions.InvalidRequestException;
+
+/**
+ * Parses the {@code fields} parameter of sparse fieldset requests, e.g. {@code fields=firstName,lastName}.
+ * The id is always selected first, since clients need it to address the person and keyset pages need it for the cursor.
+ */
+final class PersonFields {
+	
+	static final String ID = "id";
+	
+	private static final Set<String> SELECTABLE = Set.of(ID, "firstName", "lastName", "email", "address", "gender");
+	
+	private PersonFields() {}
+	
+	static List<String> parse(String fields) {
+		Set<String> selected = new LinkedHashSet<>();
+		selected.add(ID);
+		for (String field : fields.split(",")) {
+			String name = field.trim();
+			if (name.isEmpty()) {
+				continue;
+			}
+			if (!SELECTABLE.contains(name)) {
+				throw new InvalidRequestException("Unknown field: " + name);
+			}
+			selected.add(name);
+		}
+		return List.copyOf(selected);
+	}
+}
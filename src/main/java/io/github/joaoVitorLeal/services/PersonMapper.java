@@ -0,0 +1,18 @@
+package io.github.joaoVitorLeal.services;
+
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.model.Person;
+
+/**
+ * Maps the {@link Person} entities handled by the write paths to the {@link PersonDTO} returned by the web layer.
+ * Read paths do not need it, their queries select {@link PersonDTO} directly.
+ */
+final class PersonMapper {
+	
+	private PersonMapper() {}
+	
+	static PersonDTO toDTO(Person person) {
+		return new PersonDTO(person.getId(), person.getFirstName(), person.getLastName(), person.getEmail(),
+				person.getAddress(), person.getGender(), person.getVersion());
+	}
+}
@@ -0,0 +1,208 @@
+package io.github.joaoVitorLeal.services;
+
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.joaoVitorLeal.config.AfterCommit;
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.dto.PersonSuggestion;
+import io.github.joaoVitorLeal.repositories.PersonRepository;
+
+/**
+ * In-memory prefix index over the first and last names, serving the autocomplete without touching the database.
+ *
+ * Names are kept in a sorted map, keyed by the normalized first name, last name and full name (lower case, without
+ * accents) followed by the person id. The persons whose names start with a prefix are the consecutive keys from that
+ * prefix on, so a lookup costs one O(log n) seek plus the suggestions it returns. Reads take no lock.
+ *
+ * The index is loaded when the application is ready, before it reports accepting traffic. PersonService then updates
+ * it after each committed write; writes made by other instances, by the reactive stack and by batch upserts reach it
+ * through {@link PersonChangeLogPoller}.
+ */
+@Component
+public class PersonNameIndex {
+	
+	private static final Logger logger = Logger.getLogger(PersonNameIndex.class.getName());
+	
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+	
+	// Sorts before any character of a name, so "ana" + separator + id never falls between "ana" and "ana b"
+	private static final char ID_SEPARATOR = '\u0000';
+	
+	private final PersonRepository repository;
+	
+	private volatile Names names = new Names();
+	// Writers only: readers go through the concurrent sorted map
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final ReentrantLock rebuildLock = new ReentrantLock();
+	// Ids written while a rebuild streams the table, their current entry wins over the streamed row
+	private Set<Long> writtenDuringRebuild;
+	
+	public PersonNameIndex(PersonRepository repository) {
+		this.repository = repository;
+	}
+	
+	/**
+	 * @return up to {@code limit} persons whose first name, last name or full name starts with the prefix,
+	 *         ignoring case and accents, in alphabetical order of the matching name
+	 */
+	public List<PersonSuggestion> suggest(String prefix, int limit) {
+		String key = normalize(prefix);
+		if (key.isEmpty()) {
+			return List.of();
+		}
+		Map<Long, PersonSuggestion> suggestions = new LinkedHashMap<>();
+		for (PersonSuggestion suggestion : names.byKey.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+			suggestions.putIfAbsent(suggestion.id(), suggestion); // A person can match on several of its names
+			if (suggestions.size() == limit) {
+				break;
+			}
+		}
+		return List.copyOf(suggestions.values());
+	}
+	
+	/**
+	 * Reloads every name from the database. Writes applied meanwhile are kept.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void rebuild() {
+		rebuildLock.lock();
+		try {
+			rebuildLocked();
+		} finally {
+			rebuildLock.unlock();
+		}
+	}
+	
+	private void rebuildLocked() {
+		writeLock.lock();
+		try {
+			writtenDuringRebuild = new HashSet<>();
+		} finally {
+			writeLock.unlock();
+		}
+		
+		Names rebuilt = new Names();
+		try (Stream<PersonDTO> persons = repository.streamAll()) {
+			persons.forEach(person -> rebuilt.put(toSuggestion(person)));
+		} catch (RuntimeException e) {
+			stopTrackingWrites(null); // The current names stay in use
+			throw e;
+		}
+		stopTrackingWrites(rebuilt);
+		logger.info("Indexed the names of " + rebuilt.byId.size() + " people.");
+	}
+	
+	private void stopTrackingWrites(Names rebuilt) {
+		writeLock.lock();
+		try {
+			if (rebuilt != null) {
+				Names current = names;
+				for (Long id : writtenDuringRebuild) {
+					rebuilt.remove(id);
+					PersonSuggestion written = current.byId.get(id);
+					if (written != null) {
+						rebuilt.put(written);
+					}
+				}
+				names = rebuilt;
+			}
+			writtenDuringRebuild = null;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Indexes the current names of the person once the current transaction commits: a rolled back write
+	 * leaves the index untouched.
+	 */
+	public void putAfterCommit(PersonDTO person) {
+		PersonSuggestion suggestion = toSuggestion(person);
+		AfterCommit.run(() -> apply(suggestion.id(), suggestion));
+	}
+	
+	public void removeAfterCommit(Long id) {
+		AfterCommit.run(() -> apply(id, null));
+	}
+	
+	/**
+	 * Reloads the names of persons written elsewhere. Their transactions are already committed.
+	 */
+	public void refresh(Collection<Long> ids) {
+		Map<Long, PersonSuggestion> found = new HashMap<>();
+		repository.findDTOsByIdIn(ids).forEach(person -> found.put(person.id(), toSuggestion(person)));
+		ids.forEach(id -> apply(id, found.get(id)));
+	}
+	
+	private void apply(Long id, PersonSuggestion suggestion) {
+		writeLock.lock();
+		try {
+			names.remove(id);
+			if (suggestion != null) {
+				names.put(suggestion);
+			}
+			if (writtenDuringRebuild != null) {
+				writtenDuringRebuild.add(id);
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+	
+	static String normalize(String name) {
+		String withoutAccents = DIACRITICS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+		return WHITESPACE.matcher(withoutAccents.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+	}
+	
+	private static PersonSuggestion toSuggestion(PersonDTO person) {
+		return new PersonSuggestion(person.id(), person.firstName(), person.lastName());
+	}
+	
+	// Mutated under the write lock only
+	private static final class Names {
+		
+		private final ConcurrentSkipListMap<String, PersonSuggestion> byKey = new ConcurrentSkipListMap<>();
+		private final Map<Long, PersonSuggestion> byId = new HashMap<>();
+		
+		void put(PersonSuggestion suggestion) {
+			byId.put(suggestion.id(), suggestion);
+			keysOf(suggestion).forEach(key -> byKey.put(key, suggestion));
+		}
+		
+		void remove(Long id) {
+			PersonSuggestion removed = byId.remove(id);
+			if (removed != null) {
+				keysOf(removed).forEach(byKey::remove);
+			}
+		}
+		
+		private static Set<String> keysOf(PersonSuggestion suggestion) {
+			String id = ID_SEPARATOR + suggestion.id().toString();
+			// A set: first and last name may be the same
+			return new HashSet<>(List.of(
+					normalize(suggestion.firstName()) + id,
+					normalize(suggestion.lastName()) + id,
+					normalize(suggestion.firstName() + " " + suggestion.lastName()) + id));
+		}
+	}
+}
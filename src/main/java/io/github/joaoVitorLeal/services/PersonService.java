@@ -1,72 +1,649 @@
 package io.github.joaoVitorLeal.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.ConstraintViolationException.ConstraintKind;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import io.github.joaoVitorLeal.dto.PersonBatchResult;
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.dto.PersonFilter;
+import io.github.joaoVitorLeal.dto.PersonLookup;
+import io.github.joaoVitorLeal.dto.PersonPage;
+import io.github.joaoVitorLeal.dto.PersonStats;
+import io.github.joaoVitorLeal.dto.PersonSuggestion;
 import io.github.joaoVitorLeal.exceptions.DuplicateRegistrationException;
+import io.github.joaoVitorLeal.exceptions.InvalidRequestException;
+import io.github.joaoVitorLeal.exceptions.PreconditionFailedException;
 import io.github.joaoVitorLeal.exceptions.ResourceNotFoundException;
 import io.github.joaoVitorLeal.model.Person;
 import io.github.joaoVitorLeal.repositories.PersonRepository;
+import io.github.joaoVitorLeal.repositories.PersonSort;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 
+// One timer per public method (tags class and method), see management.metrics in application.yml
+@Timed(value = "person.service", description = "Time spent in PersonService operations")
 @Service
 public class PersonService {
 	
+	public static final int DEFAULT_PAGE_SIZE = 20;
+	public static final int MAX_PAGE_SIZE = 100;
+	
+	// Upper bound for the explicit unpaged listing, so it can never load the whole table
+	public static final int MAX_UNPAGED_RESULTS = 1000;
+	
+	public static final int MAX_BATCH_SIZE = 10_000;
+	
+	// Relevance ordered results are paged by offset, which gets slower the deeper it goes: only the best matches are reachable
+	public static final int MAX_SEARCH_RESULTS = 1000;
+	
+	public static final int MAX_SEARCH_QUERY_LENGTH = 200;
+	
+	public static final int DEFAULT_SUGGESTIONS = 10;
+	public static final int MAX_SUGGESTIONS = 50;
+	// Longest full name: both name columns are VARCHAR(80)
+	public static final int MAX_SUGGEST_PREFIX_LENGTH = 161;
+	
+	public static final int DEFAULT_STATS_DOMAINS = 20;
+	public static final int MAX_STATS_DOMAINS = 1000;
+	
+	// Ids of one multi-get, large lists are sent in a POST body rather than in the query string
+	public static final int MAX_LOOKUP_IDS = 10_000;
+	
+	// Values per "in (...)" list when a lookup or append is split into several statements, keeps each list at a size MySQL plans well
+	static final int IN_LIST_CHUNK_SIZE = 1000;
+	
+	private static final Set<String> PATCHABLE_FIELDS = Set.of("firstName", "lastName", "email", "address", "gender");
+	
 	private Logger logger = Logger.getLogger(PersonService.class.getName());
 	
 	private final PersonRepository repository;
+	private final PersonChangeTracker changeTracker;
+	private final PersonCache personCache;
+	private final PersonNameIndex nameIndex;
+	private final PersonCounters counters;
+	private final Validator validator;
 	
-	public PersonService(PersonRepository repository) {
+	public PersonService(PersonRepository repository, PersonChangeTracker changeTracker, PersonCache personCache,
+			PersonNameIndex nameIndex, PersonCounters counters, Validator validator) {
 		this.repository = repository;
+		this.changeTracker = changeTracker;
+		this.personCache = personCache;
+		this.nameIndex = nameIndex;
+		this.counters = counters;
+		this.validator = validator;
 	}
 	
-	public Person findById(Long id) {
+	/**
+	 * Served from {@link PersonCache}.
+	 */
+	public PersonDTO findById(Long id) {
 		logger.info("Finding one person.");
-		return repository.findById(id)
+		PersonDTO person = personCache.findById(id);
+		if (person == null) {
+			throw new ResourceNotFoundException("No records found for this id: " + id);
+		}
+		return person;
+	}
+	
+	/**
+	 * Served from {@link PersonCache}.
+	 */
+	public PersonDTO findByEmail(String email) {
+		logger.info("Finding one person by email.");
+		PersonDTO person = personCache.findByEmail(email);
+		if (person == null) {
+			throw new ResourceNotFoundException("No records found for this email: " + email);
+		}
+		return person;
+	}
+	
+	/**
+	 * Multi-get: the persons cached by {@link PersonCache} are served from memory, the others are loaded 
+	 * with chunked "in (...)" queries. Ids without a person are reported as missing instead of failing the call.
+	 */
+	public PersonLookup findAllById(List<Long> ids) {
+		logger.info("Finding many people by id.");
+		Set<Long> distinctIds = checkLookupIds(ids);
+		return toLookup(distinctIds, personCache.findAllById(distinctIds));
+	}
+	
+	static Set<Long> checkLookupIds(List<Long> ids) {
+		if (ids == null || ids.isEmpty()) {
+			throw new InvalidRequestException("At least one id is required");
+		}
+		if (ids.size() > MAX_LOOKUP_IDS) {
+			throw new InvalidRequestException("Lookups must not exceed " + MAX_LOOKUP_IDS + " ids: " + ids.size());
+		}
+		if (ids.stream().anyMatch(Objects::isNull)) {
+			throw new InvalidRequestException("Ids must not be null");
+		}
+		return new LinkedHashSet<>(ids);
+	}
+	
+	static PersonLookup toLookup(Collection<Long> ids, Map<Long, PersonDTO> personsById) {
+		List<PersonDTO> content = new ArrayList<>(personsById.size());
+		List<Long> missing = new ArrayList<>();
+		for (Long id : ids) {
+			PersonDTO person = personsById.get(id);
+			if (person == null) {
+				missing.add(id);
+			} else {
+				content.add(person);
+			}
+		}
+		return new PersonLookup(content, missing);
+	}
+	
+	/**
+	 * Current row version of one person, used to answer conditional requests. 
+	 * Read from the cached person, so a 304 normally costs no query.
+	 */
+	public Long findVersionById(Long id) {
+		logger.info("Finding the version of one person.");
+		return findById(id).version();
+	}
+	
+	/**
+	 * Version of the whole person table, changes whenever any person is written.
+	 */
+	public String findTableVersion() {
+		return changeTracker.tableVersion();
+	}
+
+	/**
+	 * Sparse fieldset variant of {@link #findById(Long)}: selects only the requested columns.
+	 */
+	@Transactional(readOnly = true)
+	public Map<String, Object> findById(Long id, String fields) {
+		logger.info("Finding fields of one person.");
+		return repository.findFieldsById(PersonFields.parse(fields), id)
 				.orElseThrow(()-> new ResourceNotFoundException("No records found for this id: " + id));
 	}
 
-	public List<Person> findAll() {
+	@Transactional(readOnly = true)
+	public List<PersonDTO> findAll() {
 		logger.info("Finding all people.");
-		return repository.findAll();	
+		return repository.findDTOsByIdGreaterThan(0L, Limit.of(MAX_UNPAGED_RESULTS));
+	}
+	
+	@Transactional(readOnly = true)
+	public List<Map<String, Object>> findAll(String fields) {
+		logger.info("Finding fields of all people.");
+		return repository.findFieldsByIdGreaterThan(PersonFields.parse(fields), 0L, MAX_UNPAGED_RESULTS);
+	}
+	
+	@Transactional(readOnly = true)
+	public PersonPage<PersonDTO> findPage(String cursor, int limit) {
+		logger.info("Finding one page of people.");
+		
+		int pageSize = checkPageLimit(limit);
+		// Fetch one extra row to know whether there is a next page without a count query
+		List<PersonDTO> persons = repository.findDTOsByIdGreaterThan(PersonCursor.decode(cursor), Limit.of(pageSize + 1));
+		return toPage(persons, pageSize, PersonDTO::id);
+	}
+	
+	/**
+	 * Filtered and sorted variant of {@link #findPage(String, int)}, still paged by keyset: the cursor holds 
+	 * the sort value and the id of the last row, so deep pages cost the same as the first one.
+	 * 
+	 * @param sort "id", "firstName" or "lastName", prefixed with "-" for a descending order, null for the id order
+	 */
+	@Transactional(readOnly = true)
+	public PersonPage<PersonDTO> findPage(PersonFilter filter, String sort, String cursor, int limit) {
+		logger.info("Finding one filtered page of people.");
+		
+		int pageSize = checkPageLimit(limit);
+		PersonSort order = parseSort(sort);
+		List<PersonDTO> persons;
+		if (order.isById()) {
+			Long afterId = order.descending() && (cursor == null || cursor.isBlank()) ? null : PersonCursor.decode(cursor);
+			persons = repository.findDTOsByFilter(filter, order, null, afterId, pageSize + 1);
+		} else {
+			PersonCursor.Key after = PersonCursor.decodeKey(order.field(), cursor);
+			persons = after == null
+					? repository.findDTOsByFilter(filter, order, null, null, pageSize + 1)
+					: repository.findDTOsByFilter(filter, order, after.value(), after.id(), pageSize + 1);
+		}
+		
+		if (persons.size() <= pageSize) {
+			return new PersonPage<>(persons, null);
+		}
+		List<PersonDTO> content = persons.subList(0, pageSize);
+		PersonDTO last = content.get(pageSize - 1);
+		String nextCursor = switch (order.field()) {
+			case "firstName" -> PersonCursor.encodeKey(order.field(), last.firstName(), last.id());
+			case "lastName" -> PersonCursor.encodeKey(order.field(), last.lastName(), last.id());
+			default -> PersonCursor.encode(last.id());
+		};
+		return new PersonPage<>(content, nextCursor);
+	}
+	
+	static PersonSort parseSort(String sort) {
+		if (sort == null || sort.isBlank()) {
+			return PersonSort.BY_ID;
+		}
+		boolean descending = sort.startsWith("-");
+		String field = descending ? sort.substring(1) : sort;
+		if (!PersonSort.FIELDS.contains(field)) {
+			throw new InvalidRequestException("Unknown sort field: " + field + ", expected one of " + PersonSort.FIELDS);
+		}
+		return new PersonSort(field, descending);
+	}
+	
+	/**
+	 * Sparse fieldset variant of {@link #findPage(String, int)}: selects only the requested columns.
+	 */
+	@Transactional(readOnly = true)
+	public PersonPage<Map<String, Object>> findPage(String cursor, int limit, String fields) {
+		logger.info("Finding fields of one page of people.");
+		
+		int pageSize = checkPageLimit(limit);
+		List<Map<String, Object>> rows = repository.findFieldsByIdGreaterThan(
+				PersonFields.parse(fields), PersonCursor.decode(cursor), pageSize + 1);
+		return toPage(rows, pageSize, row -> (Long) row.get(PersonFields.ID));
+	}
+	
+	static int checkPageLimit(int limit) {
+		if (limit < 1) {
+			throw new InvalidRequestException("Page limit must be greater than zero: " + limit);
+		}
+		return Math.min(limit, MAX_PAGE_SIZE);
+	}
+	
+	static <T> PersonPage<T> toPage(List<T> rows, int pageSize, Function<T, Long> idOf) {
+		if (rows.size() <= pageSize) {
+			return new PersonPage<>(rows, null);
+		}
+		List<T> content = rows.subList(0, pageSize);
+		return new PersonPage<>(content, PersonCursor.encode(idOf.apply(content.get(pageSize - 1))));
+	}
+	
+	/**
+	 * Full-text search over the names, email and address, most relevant first. Served by a FULLTEXT index,
+	 * so the cost depends on the number of matches rather than on the size of the table.
+	 */
+	@Transactional(readOnly = true)
+	public PersonPage<PersonDTO> search(String query, String cursor, int limit) {
+		logger.info("Searching people.");
+		
+		String terms = checkSearchQuery(query);
+		int pageSize = checkPageLimit(limit);
+		int offset = PersonCursor.decodeOffset(cursor);
+		if (offset >= MAX_SEARCH_RESULTS) {
+			throw new InvalidRequestException("Search results are limited to the first " + MAX_SEARCH_RESULTS + " matches");
+		}
+		List<PersonDTO> persons = repository.search(terms, offset, pageSize + 1);
+		return toSearchPage(persons, pageSize, offset);
+	}
+	
+	static String checkSearchQuery(String query) {
+		if (query == null || query.isBlank()) {
+			throw new InvalidRequestException("Search query must not be blank");
+		}
+		if (query.length() > MAX_SEARCH_QUERY_LENGTH) {
+			throw new InvalidRequestException("Search query must not exceed " + MAX_SEARCH_QUERY_LENGTH + " characters");
+		}
+		return query.strip();
+	}
+	
+	static <T> PersonPage<T> toSearchPage(List<T> rows, int pageSize, int offset) {
+		if (rows.size() <= pageSize) {
+			return new PersonPage<>(rows, null);
+		}
+		List<T> content = rows.subList(0, pageSize);
+		int nextOffset = offset + pageSize;
+		return new PersonPage<>(content, nextOffset < MAX_SEARCH_RESULTS ? PersonCursor.encodeOffset(nextOffset) : null);
+	}
+	
+	/**
+	 * Autocomplete on the first and last names. Served from {@link PersonNameIndex}, never from the database.
+	 */
+	public List<PersonSuggestion> suggest(String prefix, int limit) {
+		if (limit < 1) {
+			throw new InvalidRequestException("Suggestion limit must be greater than zero: " + limit);
+		}
+		return nameIndex.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS));
+	}
+	
+	/**
+	 * Counts of persons in total, by gender and by email domain. Served from {@link PersonCounters}, never from the database.
+	 * 
+	 * @param topDomains number of email domains to return, the most common ones
+	 */
+	public PersonStats findStats(int topDomains) {
+		logger.info("Finding the stats of people.");
+		if (topDomains < 1) {
+			throw new InvalidRequestException("Number of email domains must be greater than zero: " + topDomains);
+		}
+		return counters.stats(Math.min(topDomains, MAX_STATS_DOMAINS));
+	}
+	
+	/**
+	 * Hands every person to the consumer, one row at a time, in id order.
+	 * Memory use does not grow with the size of the table.
+	 */
+	@Transactional(readOnly = true)
+	public void exportAll(Consumer<PersonDTO> consumer) {
+		logger.info("Exporting all people.");
+		
+		try (Stream<PersonDTO> persons = repository.streamAll()) {
+			persons.forEach(consumer);
+		}
 	}
 	
 	@Transactional
-	public Person create(Person person) {
+	public PersonDTO create(Person person) {
 		logger.info("Creating one person.");
 		
-		Optional<Person> savedPerson = repository.findByEmail(person.getEmail());
-		if (savedPerson.isPresent()) {
-			throw new DuplicateRegistrationException("Person already exist with given email: " + person.getEmail());
+		// No findByEmail pre-check: the unique index on email is the single source of truth,
+		// which saves a round-trip and stays correct when two creates race for the same email
+		Person savedPerson;
+		try {
+			savedPerson = repository.saveAndFlush(person);
+		} catch (DataIntegrityViolationException e) {
+			throw translateDuplicateEmail(e, person.getEmail());
+		}
+		changeTracker.created(savedPerson);
+		PersonDTO created = PersonMapper.toDTO(savedPerson);
+		nameIndex.putAfterCommit(created);
+		counters.changeAfterCommit(null, created);
+		return created;
+	}
+	
+	/**
+	 * Creates many persons in one transaction. Emails already registered, or repeated inside the request, 
+	 * are reported as conflicts; every other item is inserted through JDBC batches.
+	 * 
+	 * @return one result per item, in request order
+	 */
+	@Transactional
+	public List<PersonBatchResult> createAll(List<Person> persons) {
+		logger.info("Creating a batch of people.");
+		
+		checkBatchSize(persons);
+		
+		Set<String> takenEmails = findExistingEmails(persons);
+		
+		List<Person> toInsert = new ArrayList<>();
+		PersonBatchResult[] results = new PersonBatchResult[persons.size()];
+		for (int i = 0; i < persons.size(); i++) {
+			Person person = persons.get(i);
+			if (!takenEmails.add(normalizeEmail(person.getEmail()))) {
+				results[i] = PersonBatchResult.conflict(i, person.getEmail(), 
+						"Person already exist with given email: " + person.getEmail());
+			} else {
+				toInsert.add(person);
+			}
+		}
+		
+		try {
+			repository.batchInsert(toInsert);
+		} catch (DataIntegrityViolationException e) { // Email registered concurrently after the duplicate check
+			throw translateDuplicateEmail(e, "one of the batch items");
+		}
+		changeTracker.createdAll(toInsert.stream().map(Person::getId).toList());
+		
+		for (int i = 0, inserted = 0; i < results.length; i++) {
+			if (results[i] == null) {
+				Person person = toInsert.get(inserted++);
+				results[i] = PersonBatchResult.created(i, person.getId(), person.getEmail());
+				PersonDTO created = PersonMapper.toDTO(person);
+				nameIndex.putAfterCommit(created);
+				counters.changeAfterCommit(null, created);
+			}
 		}
-		return repository.save(person);
+		return List.of(results);
 	}
 	
+	/**
+	 * Creates the persons whose email is not registered yet and updates the others, matching on email.
+	 * Runs one native upsert per chunk instead of a lookup plus an insert or update per person.
+	 * The previous rows are not read, so {@link PersonCounters} catches up when it next reconciles.
+	 */
 	@Transactional
-	public Person update(Person person) {
+	public void upsertAllByEmail(List<Person> persons) {
+		logger.info("Upserting a batch of people.");
+		
+		checkBatchSize(persons);
+		repository.upsertAllByEmail(persons);
+		List<String> emails = persons.stream().map(Person::getEmail).toList();
+		changeTracker.upsertedAll(emails);
+		personCache.evictEmailsAfterCommit(emails);
+	}
+	
+	private void checkBatchSize(List<Person> persons) {
+		if (persons.size() > MAX_BATCH_SIZE) {
+			throw new InvalidRequestException("Batch size must not exceed " + MAX_BATCH_SIZE + " items: " + persons.size());
+		}
+	}
+	
+	/**
+	 * @return the registered emails among those of the persons, normalized by {@link #normalizeEmail(String)}
+	 */
+	private Set<String> findExistingEmails(List<Person> persons) {
+		List<String> emails = persons.stream().map(Person::getEmail).map(PersonService::normalizeEmail).distinct().toList();
+		
+		Set<String> existing = new HashSet<>();
+		for (int from = 0; from < emails.size(); from += IN_LIST_CHUNK_SIZE) {
+			repository.findExistingEmails(emails.subList(from, Math.min(from + IN_LIST_CHUNK_SIZE, emails.size())))
+					.forEach(email -> existing.add(normalizeEmail(email)));
+		}
+		return existing;
+	}
+	
+	// The email column has a case-insensitive collation, so the unique index treats emails differing only in case as equal
+	static String normalizeEmail(String email) {
+		return email.toLowerCase(Locale.ROOT);
+	}
+	
+	@Transactional // Self-invocation bypasses the proxy, so the delegating overload needs its own transaction
+	public PersonDTO update(Person person) {
+		return update(person, null);
+	}
+	
+	/**
+	 * Replaces the fields of one person with a single UPDATE, without reading the row first: the affected row 
+	 * count tells whether the person exists. Only a conditional update adds "and version = ?" to the statement, 
+	 * and only it can fail with 412; an unconditional one overwrites whatever version is current.
+	 * 
+	 * @param expectedVersion version the client last read, or null for an unconditional update
+	 * @return the written person; its version is only known, and set, for a conditional update
+	 */
+	@Transactional
+	public PersonDTO update(Person person, Long expectedVersion) {
+		Long id = requireId(person.getId());
 		logger.info("Updating one person.");
 		
-		var existingPerson = repository.findById(person.getId())
-				.orElseThrow(()-> new ResourceNotFoundException("No records found for this id: " + person.getId()));
+		PersonDTO previous = personCache.findCachedById(id);
+		int updatedRows;
+		try {
+			updatedRows = repository.updateById(person, expectedVersion);
+		} catch (DataIntegrityViolationException e) {
+			throw translateDuplicateEmail(e, person.getEmail());
+		}
+		if (updatedRows == 0) {
+			throw notFoundOrModified(id, expectedVersion);
+		}
 		
-		existingPerson.setFirstName(person.getFirstName());
-		existingPerson.setLastName(person.getLastName());
-		existingPerson.setEmail(person.getEmail());
-		existingPerson.setAddress(person.getAddress());
-		existingPerson.setGender(person.getGender());
+		person.setVersion(expectedVersion == null ? null : expectedVersion + 1);
+		PersonDTO written = PersonMapper.toDTO(person);
+		// The cached person is only known to be the replaced row when it has the version the update matched
+		updated(written, expectedVersion != null && previous != null && expectedVersion.equals(previous.version()) 
+				? previous : null, previous);
+		return written;
+	}
 	
-		return repository.save(existingPerson);
+	// A request body without id cannot name an existing person; rejected before it reaches a cache or statement
+	static Long requireId(Long id) {
+		if (id == null) {
+			throw new ResourceNotFoundException("No records found for this id: null");
+		}
+		return id;
 	}
 	
+	/**
+	 * Applies a JSON Merge Patch (RFC 7396) to one person with a single UPDATE of the patched columns, without 
+	 * reading the row first. The version is only incremented when a column actually changes, so a patch that 
+	 * changes nothing keeps the ETag. The row is then read back, locked by the UPDATE, for the response body.
+	 * 
+	 * @param expectedVersion version the client last read, or null for an unconditional patch
+	 */
+	@Transactional
+	public PersonDTO patch(Long id, Map<String, Object> patch, Long expectedVersion) {
+		logger.info("Patching one person.");
+		
+		checkMergePatch(patch);
+		Map<String, String> fields = toPatchedFields(patch);
+		PersonDTO previous = personCache.findCachedById(id);
+		int updatedRows;
+		try {
+			updatedRows = repository.patchById(id, fields, expectedVersion);
+		} catch (DataIntegrityViolationException e) {
+			throw translateDuplicateEmail(e, fields.get("email"));
+		}
+		if (updatedRows == 0) {
+			throw notFoundOrModified(id, expectedVersion);
+		}
+		
+		PersonDTO written = findCurrentById(id);
+		if (previous != null && written.version().equals(previous.version())) {
+			return written; // Nothing changed
+		}
+		updated(written, previous != null && written.version().equals(previous.version() + 1) ? previous : null, previous);
+		return written;
+	}
+	
+	/**
+	 * Rejects a merge patch whose values break the constraints of {@link Person} before any row is read, 
+	 * the way the controllers reject an invalid person in a request body. Null members and fields that 
+	 * cannot be patched are rejected by {@link #toPatchedFields(Map)}.
+	 */
+	public void checkMergePatch(Map<String, Object> patch) {
+		Set<ConstraintViolation<Person>> violations = new HashSet<>();
+		for (Map.Entry<String, Object> entry : patch.entrySet()) {
+			if (entry.getValue() instanceof String value && PATCHABLE_FIELDS.contains(entry.getKey())) {
+				violations.addAll(validator.validateValue(Person.class, entry.getKey(), value));
+			}
+		}
+		if (!violations.isEmpty()) {
+			throw new jakarta.validation.ConstraintViolationException(violations);
+		}
+	}
+	
+	/**
+	 * @return the new values of the patch, by field name
+	 */
+	static Map<String, String> toPatchedFields(Map<String, Object> patch) {
+		Map<String, String> fields = new LinkedHashMap<>();
+		for (Map.Entry<String, Object> entry : patch.entrySet()) {
+			String field = entry.getKey();
+			// Every column is mandatory, so the "remove" semantics of a null member cannot apply
+			if (!(entry.getValue() instanceof String value)) {
+				throw new InvalidRequestException("Field must be a non-null string: " + field);
+			}
+			if (!PATCHABLE_FIELDS.contains(field)) {
+				throw new InvalidRequestException("Field cannot be patched: " + field);
+			}
+			fields.put(field, value);
+		}
+		return fields;
+	}
+	
+	/**
+	 * Deletes one person with a single DELETE, without reading the row first: the affected row count tells 
+	 * whether the person existed.
+	 */
 	@Transactional
 	public void delete(Long id) {
 		logger.info("Delete one person.");
 		
-		Person existingPerson = repository.findById(id)
+		PersonDTO previous = personCache.findCachedById(id);
+		if (repository.removeById(id, null) == 0) {
+			throw notFoundOrModified(id, null);
+		}
+		changeTracker.deleted(id);
+		if (previous == null) {
+			personCache.evictAfterCommit(id);
+		} else {
+			// Best effort: the cached person is the deleted row unless another instance wrote it since
+			personCache.evictAfterCommit(id, previous.email());
+			counters.changeAfterCommit(previous, null);
+		}
+		nameIndex.removeAfterCommit(id);
+	}
+	
+	/**
+	 * Side effects of a committed update. 
+	 * 
+	 * @param replaced the person before the update, only when it is known to be the replaced row; without it 
+	 *                 the counters are left to {@link PersonCounters#reconcile()}
+	 * @param cached   the person cached before the update, whose email must be evicted too
+	 */
+	private void updated(PersonDTO written, PersonDTO replaced, PersonDTO cached) {
+		changeTracker.updated(written.id());
+		personCache.evictAfterCommit(written.id(), cached == null || cached.email().equals(written.email()) 
+				? new String[] { written.email() } : new String[] { cached.email(), written.email() });
+		nameIndex.putAfterCommit(written);
+		if (replaced != null) {
+			counters.changeAfterCommit(replaced, written);
+		}
+	}
+	
+	// Bypasses PersonCache, which is only evicted once the write commits
+	private PersonDTO findCurrentById(Long id) {
+		return repository.findDTOById(id)
 				.orElseThrow(()-> new ResourceNotFoundException("No records found for this id: " + id));
-		repository.delete(existingPerson);
+	}
+	
+	/**
+	 * Tells why a write matched no row: an unconditional write only misses a person that does not exist (404). 
+	 * A conditional one also misses a person whose version changed (412), told apart by reading the row.
+	 */
+	private RuntimeException notFoundOrModified(Long id, Long expectedVersion) {
+		if (expectedVersion == null) {
+			return new ResourceNotFoundException("No records found for this id: " + id);
+		}
+		try {
+			findCurrentById(id);
+		} catch (ResourceNotFoundException e) {
+			return e;
+		}
+		return new PreconditionFailedException("Person was modified concurrently, version is no longer: " + expectedVersion);
+	}
+	
+	/**
+	 * Maps a unique key violation (the email is the only unique column besides the id) to a 
+	 * {@link DuplicateRegistrationException}; any other integrity violation is returned unchanged.
+	 */
+	private static RuntimeException translateDuplicateEmail(DataIntegrityViolationException e, String email) {
+		boolean uniqueViolation = e instanceof DuplicateKeyException // Raised through JdbcTemplate
+				|| (e.getCause() instanceof ConstraintViolationException violation // Raised through Hibernate
+						&& violation.getKind() == ConstraintKind.UNIQUE);
+		
+		if (uniqueViolation) {
+			return new DuplicateRegistrationException("Person already exist with given email: " + email);
+		}
+		return e;
 	}
 }
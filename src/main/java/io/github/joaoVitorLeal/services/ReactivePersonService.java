@@ -0,0 +1,271 @@
+package io.github.joaoVitorLeal.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import io.github.joaoVitorLeal.dto.PersonBatchResult;
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.dto.PersonFilter;
+import io.github.joaoVitorLeal.dto.PersonLookup;
+import io.github.joaoVitorLeal.dto.PersonPage;
+import io.github.joaoVitorLeal.dto.PersonStats;
+import io.github.joaoVitorLeal.dto.PersonSuggestion;
+import io.github.joaoVitorLeal.exceptions.DuplicateRegistrationException;
+import io.github.joaoVitorLeal.exceptions.InvalidRequestException;
+import io.github.joaoVitorLeal.exceptions.PreconditionFailedException;
+import io.github.joaoVitorLeal.exceptions.ResourceNotFoundException;
+import io.github.joaoVitorLeal.model.Person;
+import io.github.joaoVitorLeal.model.PersonChangeLog.Operation;
+import io.github.joaoVitorLeal.repositories.ReactivePersonRepository;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking counterpart of {@link PersonService} for the reactive stack ("reactive" profile), with the same
+ * validation, versioning and error semantics. Reads go straight to the database: {@link PersonCache} loads
+ * through JPA and would block the event loop. Writes append to person_change_log in their own transaction,
+ * so the caches of the other instances are evicted the same way as for the servlet stack.
+ */
+@Service
+@Profile("reactive")
+public class ReactivePersonService {
+	
+	// MySQL error code of a duplicate entry in a unique index
+	private static final int DUPLICATE_ENTRY = 1062;
+	
+	private Logger logger = Logger.getLogger(ReactivePersonService.class.getName());
+	
+	private final ReactivePersonRepository repository;
+	private final TransactionalOperator transactionalOperator;
+	private final PersonService personService;
+	
+	public ReactivePersonService(ReactivePersonRepository repository, TransactionalOperator transactionalOperator,
+			PersonService personService) {
+		this.repository = repository;
+		this.transactionalOperator = transactionalOperator;
+		this.personService = personService;
+	}
+	
+	public Mono<PersonDTO> findById(Long id) {
+		logger.info("Finding one person.");
+		return findPerson(id).map(PersonMapper::toDTO);
+	}
+	
+	// Also reads back the row a patch wrote, for the response body
+	private Mono<Person> findPerson(Long id) {
+		return repository.findById(id)
+				.switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("No records found for this id: " + id)));
+	}
+	
+	// Same as PersonService.findAllById, with every id queried: there is no cache on the reactive stack
+	public Mono<PersonLookup> findAllById(List<Long> ids) {
+		logger.info("Finding many people by id.");
+		return Mono.defer(() -> {
+			List<Long> distinctIds = List.copyOf(PersonService.checkLookupIds(ids));
+			return Flux.range(0, (distinctIds.size() + PersonService.IN_LIST_CHUNK_SIZE - 1) / PersonService.IN_LIST_CHUNK_SIZE)
+					.map(chunk -> distinctIds.subList(chunk * PersonService.IN_LIST_CHUNK_SIZE,
+							Math.min((chunk + 1) * PersonService.IN_LIST_CHUNK_SIZE, distinctIds.size())))
+					.concatMap(repository::findDTOsByIdIn)
+					.collectMap(PersonDTO::id)
+					.map(personsById -> PersonService.toLookup(distinctIds, personsById));
+		});
+	}
+	
+	public Mono<PersonDTO> findByEmail(String email) {
+		logger.info("Finding one person by email.");
+		return repository.findByEmail(email)
+				.switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("No records found for this email: " + email)));
+	}
+	
+	public Mono<String> findTableVersion() {
+		return repository.findTableVersion();
+	}
+	
+	public Mono<Map<String, Object>> findById(Long id, String fields) {
+		logger.info("Finding fields of one person.");
+		return Mono.fromSupplier(() -> PersonFields.parse(fields))
+				.flatMap(selected -> repository.findFieldsById(selected, id))
+				.switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("No records found for this id: " + id)));
+	}
+	
+	public Flux<PersonDTO> findAll() {
+		logger.info("Finding all people.");
+		return repository.findDTOsByIdGreaterThan(0L, PersonService.MAX_UNPAGED_RESULTS);
+	}
+	
+	public Flux<Map<String, Object>> findAll(String fields) {
+		logger.info("Finding fields of all people.");
+		return Mono.fromSupplier(() -> PersonFields.parse(fields))
+				.flatMapMany(selected -> repository.findFieldsByIdGreaterThan(selected, 0L, PersonService.MAX_UNPAGED_RESULTS));
+	}
+	
+	public Mono<PersonPage<PersonDTO>> findPage(String cursor, int limit) {
+		logger.info("Finding one page of people.");
+		return Mono.defer(() -> {
+			int pageSize = PersonService.checkPageLimit(limit);
+			// Fetch one extra row to know whether there is a next page without a count query
+			return repository.findDTOsByIdGreaterThan(PersonCursor.decode(cursor), pageSize + 1)
+					.collectList()
+					.map(persons -> PersonService.toPage(persons, pageSize, PersonDTO::id));
+		});
+	}
+	
+	// Criteria query through JPA, on the bounded elastic scheduler like the batch endpoints
+	public Mono<PersonPage<PersonDTO>> findPage(PersonFilter filter, String sort, String cursor, int limit) {
+		return Mono.fromCallable(() -> personService.findPage(filter, sort, cursor, limit))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+	
+	public Mono<PersonPage<Map<String, Object>>> findPage(String cursor, int limit, String fields) {
+		logger.info("Finding fields of one page of people.");
+		return Mono.defer(() -> {
+			int pageSize = PersonService.checkPageLimit(limit);
+			return repository.findFieldsByIdGreaterThan(PersonFields.parse(fields), PersonCursor.decode(cursor), pageSize + 1)
+					.collectList()
+					.map(rows -> PersonService.toPage(rows, pageSize, row -> (Long) row.get(PersonFields.ID)));
+		});
+	}
+	
+	public Mono<PersonPage<PersonDTO>> search(String query, String cursor, int limit) {
+		logger.info("Searching people.");
+		return Mono.defer(() -> {
+			String terms = PersonService.checkSearchQuery(query);
+			int pageSize = PersonService.checkPageLimit(limit);
+			int offset = PersonCursor.decodeOffset(cursor);
+			if (offset >= PersonService.MAX_SEARCH_RESULTS) {
+				return Mono.error(new InvalidRequestException(
+						"Search results are limited to the first " + PersonService.MAX_SEARCH_RESULTS + " matches"));
+			}
+			return repository.search(terms, offset, pageSize + 1)
+					.collectList()
+					.map(persons -> PersonService.toSearchPage(persons, pageSize, offset));
+		});
+	}
+	
+	// In memory, so it does not block. Reactive writes reach the index through the change log, see PersonNameIndex
+	public Mono<List<PersonSuggestion>> suggest(String prefix, int limit) {
+		return Mono.fromSupplier(() -> personService.suggest(prefix, limit));
+	}
+	
+	// In memory, so it does not block. Reactive writes are counted when PersonCounters next reconciles
+	public Mono<PersonStats> findStats(int topDomains) {
+		return Mono.fromSupplier(() -> personService.findStats(topDomains));
+	}
+	
+	/**
+	 * Every person in id order, read as the subscriber requests them.
+	 */
+	public Flux<PersonDTO> exportAll() {
+		logger.info("Exporting all people.");
+		return repository.streamAll();
+	}
+	
+	/**
+	 * Batch writes stay on the JDBC batch path of {@link PersonService}, on a thread that may block.
+	 * R2DBC has no equivalent of rewriteBatchedStatements, so one statement per row would be slower.
+	 */
+	public Mono<List<PersonBatchResult>> createAll(List<Person> persons) {
+		return Mono.fromCallable(() -> personService.createAll(persons))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+	
+	public Mono<Void> upsertAllByEmail(List<Person> persons) {
+		return Mono.fromRunnable(() -> personService.upsertAllByEmail(persons))
+				.subscribeOn(Schedulers.boundedElastic())
+				.then();
+	}
+	
+	public Mono<PersonDTO> create(Person person) {
+		logger.info("Creating one person.");
+		
+		// Same as PersonService: the unique index on email is the duplicate check
+		return repository.insert(person)
+				.onErrorMap(DataIntegrityViolationException.class, e -> translateDuplicateEmail(e, person.getEmail()))
+				.flatMap(savedPerson -> repository.appendChange(savedPerson.getId(), savedPerson.getVersion(), Operation.CREATE)
+						.thenReturn(savedPerson))
+				.map(PersonMapper::toDTO)
+				.as(transactionalOperator::transactional);
+	}
+	
+	/**
+	 * One UPDATE without reading the row first, see {@link PersonService#update(Person, Long)}.
+	 * 
+	 * @param expectedVersion version the client last read, or null for an unconditional update
+	 */
+	public Mono<PersonDTO> update(Person person, Long expectedVersion) {
+		logger.info("Updating one person.");
+		return Mono.fromCallable(() -> PersonService.requireId(person.getId()))
+				.flatMap(id -> repository.updateById(person, expectedVersion))
+				.onErrorMap(DataIntegrityViolationException.class, e -> translateDuplicateEmail(e, person.getEmail()))
+				.flatMap(rowsUpdated -> {
+					if (rowsUpdated == 0) {
+						return notFoundOrModified(person.getId(), expectedVersion);
+					}
+					person.setVersion(expectedVersion == null ? null : expectedVersion + 1);
+					return repository.appendChange(person.getId(), person.getVersion(), Operation.UPDATE).thenReturn(person);
+				})
+				.map(PersonMapper::toDTO)
+				.as(transactionalOperator::transactional);
+	}
+	
+	/**
+	 * Applies a JSON Merge Patch (RFC 7396) to one person, see {@link PersonService#patch(Long, Map, Long)}.
+	 */
+	public Mono<PersonDTO> patch(Long id, Map<String, Object> patch, Long expectedVersion) {
+		logger.info("Patching one person.");
+		return Mono.fromCallable(() -> {
+					personService.checkMergePatch(patch);
+					return PersonService.toPatchedFields(patch);
+				})
+				.flatMap(fields -> repository.patchById(id, fields, expectedVersion)
+						.onErrorMap(DataIntegrityViolationException.class, e -> translateDuplicateEmail(e, fields.get("email"))))
+				.flatMap(rowsUpdated -> rowsUpdated == 0
+						? notFoundOrModified(id, expectedVersion)
+						// Read back for the response body, the row is locked by the UPDATE
+						: findPerson(id).flatMap(person -> repository.appendChange(id, person.getVersion(), Operation.UPDATE)
+								.thenReturn(person)))
+				.map(PersonMapper::toDTO)
+				.as(transactionalOperator::transactional);
+	}
+	
+	/**
+	 * One DELETE without reading the row first, see {@link PersonService#delete(Long)}.
+	 */
+	public Mono<Void> delete(Long id) {
+		logger.info("Delete one person.");
+		return repository.removeById(id, null)
+				.flatMap(rowsDeleted -> rowsDeleted == 0
+						? notFoundOrModified(id, null)
+						: repository.appendChange(id, null, Operation.DELETE))
+				.as(transactionalOperator::transactional);
+	}
+	
+	// Same as PersonService: only a conditional write reads the row, to tell 404 from 412
+	private <T> Mono<T> notFoundOrModified(Long id, Long expectedVersion) {
+		if (expectedVersion == null) {
+			return Mono.error(new ResourceNotFoundException("No records found for this id: " + id));
+		}
+		return findPerson(id).then(Mono.error(() -> 
+				new PreconditionFailedException("Person was modified concurrently, version is no longer: " + expectedVersion)));
+	}
+	
+	private static RuntimeException translateDuplicateEmail(DataIntegrityViolationException e, String email) {
+		boolean uniqueViolation = e instanceof DuplicateKeyException
+				|| (e.getCause() instanceof R2dbcDataIntegrityViolationException violation
+						&& violation.getErrorCode() == DUPLICATE_ENTRY);
+		
+		if (uniqueViolation) {
+			return new DuplicateRegistrationException("Person already exist with given email: " + email);
+		}
+		return e;
+	}
+}
@@ -4,7 +4,37 @@ CREATE TABLE person (
     last_name VARCHAR(80) NOT NULL,
     email VARCHAR(150) NOT NULL UNIQUE,
     address VARCHAR(100) NOT NULL,
-    gender VARCHAR(15) NOT NULL
+    gender VARCHAR(15) NOT NULL,
+    -- Row version (ETag, If-Match). On an existing table:
+    -- ALTER TABLE person ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+    version BIGINT NOT NULL DEFAULT 0,
+    -- Derived from email for the email domain filter of GET /person. On an existing table (rebuilds it):
+    -- ALTER TABLE person ADD COLUMN email_domain VARCHAR(150) GENERATED ALWAYS AS (SUBSTRING_INDEX(email, '@', -1)) STORED;
+    email_domain VARCHAR(150) GENERATED ALWAYS AS (SUBSTRING_INDEX(email, '@', -1)) STORED,
+    -- Filters of GET /person, see PersonRepository#findDTOsByFilter. Every filter leads at least one index,
+    -- and InnoDB appends the id to each of them for the keyset pages. On an existing table, after email_domain:
+    -- ALTER TABLE person ADD INDEX idx_person_last_name_first_name (last_name, first_name),
+    --     ADD INDEX idx_person_first_name (first_name),
+    --     ADD INDEX idx_person_gender_last_name (gender, last_name),
+    --     ADD INDEX idx_person_email_domain_last_name (email_domain, last_name);
+    INDEX idx_person_last_name_first_name (last_name, first_name),
+    INDEX idx_person_first_name (first_name),
+    INDEX idx_person_gender_last_name (gender, last_name),
+    INDEX idx_person_email_domain_last_name (email_domain, last_name),
+    -- GET /person/search, see PersonRepository#search. On an existing table:
+    -- ALTER TABLE person ADD FULLTEXT INDEX person_search (first_name, last_name, email, address);
+    FULLTEXT INDEX person_search (first_name, last_name, email, address)
+);
+
+-- Append-only log of writes to person, written in the same transaction as the write.
+-- max(seq) is the table-level version used as the ETag of the collection resources.
+-- IF NOT EXISTS: production runs with ddl-auto none, so this statement also creates the table on an existing schema.
+CREATE TABLE IF NOT EXISTS person_change_log (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    person_id BIGINT NOT NULL,
+    version BIGINT,
+    operation VARCHAR(10) NOT NULL,
+    changed_at TIMESTAMP(6) NOT NULL
 );
 
 INSERT INTO person (first_name, last_name, email, address, gender)
@@ -1,36 +1,68 @@
 package io.github.joaoVitorLeal.controllers;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.github.joaoVitorLeal.dto.PersonBatchResult;
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.dto.PersonFilter;
+import io.github.joaoVitorLeal.dto.PersonLookup;
+import io.github.joaoVitorLeal.dto.PersonPage;
+import io.github.joaoVitorLeal.dto.PersonStats;
+import io.github.joaoVitorLeal.dto.PersonSuggestion;
+import io.github.joaoVitorLeal.exceptions.DuplicateRegistrationException;
+import io.github.joaoVitorLeal.exceptions.InvalidRequestException;
+import io.github.joaoVitorLeal.exceptions.PreconditionFailedException;
 import io.github.joaoVitorLeal.exceptions.ResourceNotFoundException;
+import io.github.joaoVitorLeal.exceptions.handler.CustomizedResponseEntityExceptionHandler;
 import io.github.joaoVitorLeal.model.Person;
 import io.github.joaoVitorLeal.services.PersonService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 
 
@@ -58,6 +90,20 @@ public class PersonControllerTest {
      */
     @MockitoBean
     private PersonService service;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    /**
+     * Registry em memória, onde o handler de exceções registra os contadores de erros.
+     */
+    @TestConfiguration
+    static class MetricsConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
 
     private Person person0;
 
@@ -76,6 +122,14 @@ public class PersonControllerTest {
         );
     }
     
+    /**
+     * Cópia da Person no formato retornado pelo service.
+     */
+    private static PersonDTO toDTO(Person person) {
+        return new PersonDTO(person.getId(), person.getFirstName(), person.getLastName(), person.getEmail(),
+                person.getAddress(), person.getGender(), person.getVersion());
+    }
+    
     /********************************************************************************************************
      * Tests
      ********************************************************************************************************/
@@ -89,7 +143,7 @@ public class PersonControllerTest {
 	void testGivenPersonObject_WhenCreatePerson_thenReturnSavedPerson() throws Exception, JsonProcessingException {
 		// Given
     	given(service.create(any(Person.class)))
-    		.willAnswer( (invocation) -> invocation.getArgument(0) );
+    		.willAnswer( (invocation) -> toDTO(invocation.getArgument(0)) );
     	
 		// When
         ResultActions response = mockMvc.perform(post("/person")
@@ -104,6 +158,149 @@ public class PersonControllerTest {
         	.andExpect(jsonPath("$.email", is(person0.getEmail())));
 	}
     
+    /**
+     * multi-get testing,
+     * @return persons in request order and the missing ids
+     * */
+    @Test
+    @DisplayName("JUnit test - Given list of ids when findAllById, then return the persons found and the missing ids")
+    void testGivenListOfIds_WhenFindAllById_thenReturnPersonsAndMissingIds() throws Exception {
+    	// Given
+    	given(service.findAllById(List.of(1L, 99L)))
+    		.willReturn(new PersonLookup(List.of(toDTO(person0)), List.of(99L)));
+    	
+    	// When
+    	ResultActions byParam = mockMvc.perform(get("/person").param("ids", "1,99"));
+    	ResultActions byBody = mockMvc.perform(post("/person/lookup")
+    			.contentType(MediaType.APPLICATION_JSON)
+    			.content("[1, 99]"));
+    	
+    	// Then
+    	for (ResultActions response : List.of(byParam, byBody)) {
+    		response.andExpect(status().isOk())
+    			.andExpect(jsonPath("$.content[0].email", is(person0.getEmail())))
+    			.andExpect(jsonPath("$.missing[0]", is(99)));
+    	}
+    	verify(service, never()).findPage(any(), anyInt());
+    }
+    
+    /**
+     * stats testing,
+     * @return counters by gender and by email domain
+     * */
+    @Test
+    @DisplayName("JUnit test - Given number of domains when findStats, then return the counters")
+    void testGivenNumberOfDomains_WhenFindStats_thenReturnCounters() throws Exception {
+    	// Given
+    	given(service.findStats(5)).willReturn(new PersonStats(3, Map.of("male", 2L, "female", 1L), Map.of("gmail.com", 3L)));
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person/stats").param("domains", "5"));
+    	
+    	// Then
+    	response.andExpect(status().isOk())
+    		.andExpect(jsonPath("$.total", is(3)))
+    		.andExpect(jsonPath("$.byGender.male", is(2)))
+    		.andExpect(jsonPath("$.byEmailDomain['gmail.com']", is(3)));
+    }
+    
+    /**
+     * batch create testing,
+     * @return one result per item, in request order
+     * */
+    @Test
+    @DisplayName("JUnit test - Given list of Persons when create batch, then return one result per item")
+    void testGivenListOfPersons_WhenCreateBatch_thenReturnResultPerItem() throws Exception {
+    	// Given
+    	Person person1 = new Person("Tânia", "Leal", "tan@hotmail.com", "Paulo Afonso - BA - Brasil", "Female");
+    	given(service.createAll(any())).willReturn(List.of(
+    			PersonBatchResult.created(0, 1L, person0.getEmail()),
+    			PersonBatchResult.conflict(1, person1.getEmail(), "Person already exist with given email: " + person1.getEmail())));
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(post("/person/batch")
+    			.contentType(MediaType.APPLICATION_JSON)
+    			.content(mapper.writeValueAsString(List.of(person0, person1))));
+    	
+    	// Then
+    	response.andExpect(status().isOk())
+    		.andDo(print())
+    		.andExpect(jsonPath("$.size()", is(2)))
+    		.andExpect(jsonPath("$[0].status", is("CREATED")))
+    		.andExpect(jsonPath("$[0].id", is(1)))
+    		.andExpect(jsonPath("$[1].status", is("CONFLICT")))
+    		.andExpect(jsonPath("$[1].email", is(person1.getEmail())));
+    }
+    
+    /**
+     * batch upsert testing,
+     * @return No Content - HTTP status 204
+     * */
+    @Test
+    @DisplayName("JUnit test - Given list of Persons when upsert batch, then return HTTP status No Content")
+    void testGivenListOfPersons_WhenUpsertBatch_thenReturnNoContent() throws Exception {
+    	// Given
+    	willDoNothing().given(service).upsertAllByEmail(any());
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(put("/person/batch")
+    			.contentType(MediaType.APPLICATION_JSON)
+    			.content(mapper.writeValueAsString(List.of(person0))));
+    	
+    	// Then
+    	response.andExpect(status().isNoContent())
+    		.andDo(print());
+    }
+    
+    /**
+     * create testing com uma Person inválida: rejeitada antes de chegar ao service,
+     * @return Bad Request - HTTP status 400, com um erro por campo inválido
+     * */
+    @Test
+    @DisplayName("JUnit test - Given invalid Person when create Person, then return HTTP status Bad Request with field errors")
+    void testGivenInvalidPerson_WhenCreatePerson_thenReturnBadRequestWithFieldErrors() throws Exception {
+    	// Given
+    	person0.setFirstName(" ");
+    	person0.setEmail("not-an-email");
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(post("/person")
+    			.contentType(MediaType.APPLICATION_JSON)
+    			.content(mapper.writeValueAsString(person0)));
+    	
+    	// Then
+    	response.andExpect(status().isBadRequest())
+    		.andDo(print())
+    		.andExpect(jsonPath("$.message", is("Validation failed for 2 field(s)")))
+    		.andExpect(jsonPath("$.errors.size()", is(2)))
+    		.andExpect(jsonPath("$.errors[?(@.field == 'firstName')]").exists())
+    		.andExpect(jsonPath("$.errors[?(@.field == 'email')]").exists());
+    	verify(service, never()).create(any());
+    }
+    
+    /**
+     * batch upsert testing com um item inválido: o lote inteiro é rejeitado,
+     * @return Bad Request - HTTP status 400, indicando a posição do item
+     * */
+    @Test
+    @DisplayName("JUnit test - Given batch with an invalid Person when upsert batch, then return HTTP status Bad Request with the item index")
+    void testGivenBatchWithInvalidPerson_WhenUpsertBatch_thenReturnBadRequest() throws Exception {
+    	// Given
+    	Person person1 = new Person("Tânia", "Leal", "tan@", "Paulo Afonso - BA - Brasil", "Female");
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(put("/person/batch")
+    			.contentType(MediaType.APPLICATION_JSON)
+    			.content(mapper.writeValueAsString(List.of(person0, person1))));
+    	
+    	// Then
+    	response.andExpect(status().isBadRequest())
+    		.andDo(print())
+    		.andExpect(jsonPath("$.errors.size()", is(1)))
+    		.andExpect(jsonPath("$.errors[0].field", is("[1].email")));
+    	verify(service, never()).upsertAllByEmail(any());
+    }
+    
     /**
      * findAll testing,
      * @return persons (List of Persons Object)
@@ -123,10 +320,10 @@ public class PersonControllerTest {
             "Male"
         ));
     	
-    	given(service.findAll()).willReturn(persons);
+    	given(service.findAll()).willReturn(persons.stream().map(PersonControllerTest::toDTO).toList());
     	
 		// When
-        ResultActions response = mockMvc.perform(get("/person"));
+        ResultActions response = mockMvc.perform(get("/person").param("unpaged", "true"));
     	
 		// Then 
         response
@@ -135,6 +332,360 @@ public class PersonControllerTest {
         	.andExpect(jsonPath("$.size()", is(persons.size())));
 	}
     
+    /**
+     * findPage testing,
+     * @return first page of persons and the cursor of the next page
+     * */
+    @Test
+    @DisplayName("JUnit test - Given cursor and limit when findPage, then return page with next cursor")
+    void testGivenCursorAndLimit_WhenFindPage_thenReturnPageWithNextCursor() throws Exception {
+    	// Given
+    	person0.setId(1L);
+    	given(service.findPage("MQ", 1)).willReturn(new PersonPage<>(List.of(toDTO(person0)), "Mg"));
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person")
+    			.param("after", "MQ")
+    			.param("limit", "1"));
+    	
+    	// Then
+    	response
+    		.andExpect(status().isOk())
+    		.andDo(print())
+    		.andExpect(jsonPath("$.content.size()", is(1)))
+    		.andExpect(jsonPath("$.content[0].email", is(person0.getEmail())))
+    		.andExpect(jsonPath("$.nextCursor", is("Mg")));
+    }
+    
+    /**
+     * findPage testing without parameters,
+     * @return last page without next cursor
+     * */
+    @Test
+    @DisplayName("JUnit test - Given no parameters when findPage, then use default limit and return last page")
+    void testGivenNoParameters_WhenFindPage_thenReturnLastPage() throws Exception {
+    	// Given
+    	given(service.findPage(null, PersonService.DEFAULT_PAGE_SIZE)).willReturn(new PersonPage<>(List.of(toDTO(person0)), null));
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person"));
+    	
+    	// Then
+    	response
+    		.andExpect(status().isOk())
+    		.andExpect(jsonPath("$.content.size()", is(1)))
+    		.andExpect(jsonPath("$.nextCursor", nullValue()));
+    }
+    
+    /**
+     * findPage testing com filtros e ordenação,
+     * @return page of the persons matching every filter
+     * */
+    @Test
+    @DisplayName("JUnit test - Given filters and sort when findPage, then return the filtered page")
+    void testGivenFiltersAndSort_WhenFindPage_thenReturnFilteredPage() throws Exception {
+    	// Given
+    	PersonFilter filter = new PersonFilter("Male", "Castro", "Jo", "outlook.com");
+    	given(service.findPage(filter, "-firstName", null, PersonService.DEFAULT_PAGE_SIZE))
+    		.willReturn(new PersonPage<>(List.of(toDTO(person0)), null));
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person")
+    			.param("gender", "Male")
+    			.param("lastName", "Castro")
+    			.param("firstNamePrefix", "Jo")
+    			.param("emailDomain", "outlook.com")
+    			.param("sort", "-firstName"));
+    	
+    	// Then
+    	response
+    		.andExpect(status().isOk())
+    		.andExpect(jsonPath("$.content[0].email", is(person0.getEmail())));
+    	verify(service, never()).findPage(any(), anyInt());
+    }
+    
+    @Test
+    @DisplayName("JUnit test - Given fields when findPage, then return only the selected fields")
+    void testGivenFields_WhenFindPage_thenReturnSelectedFields() throws Exception {
+    	// Given
+    	given(service.findPage(null, PersonService.DEFAULT_PAGE_SIZE, "firstName"))
+    		.willReturn(new PersonPage<>(List.of(Map.of("id", 1L, "firstName", "João")), null));
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person").param("fields", "firstName"));
+    	
+    	// Then
+    	response
+    		.andExpect(status().isOk())
+    		.andExpect(jsonPath("$.content[0].firstName", is("João")))
+    		.andExpect(jsonPath("$.content[0].email").doesNotExist());
+    	verify(service, never()).findPage(any(), anyInt());
+    }
+    
+    /**
+     * findPage testing com limit menor que 1: nenhuma consulta é feita,
+     * @return Bad Request - HTTP status 400
+     * */
+    @Test
+    @DisplayName("JUnit test - Given limit zero when findPage, then return HTTP status Bad Request without querying")
+    void testGivenLimitZero_WhenFindPage_thenReturnBadRequestWithoutQuerying() throws Exception {
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person").param("limit", "0"));
+    	
+    	// Then
+    	response.andExpect(status().isBadRequest())
+    		.andDo(print())
+    		.andExpect(jsonPath("$.errors[0].field", is("limit")));
+    	verify(service, never()).findTableVersion();
+    	verify(service, never()).findPage(any(), anyInt());
+    }
+    
+    /**
+     * search testing,
+     * @return best matches first and the cursor of the next page
+     * */
+    @Test
+    @DisplayName("JUnit test - Given query when search, then return page of matches with next cursor")
+    void testGivenQuery_WhenSearch_thenReturnPageOfMatches() throws Exception {
+    	// Given
+    	person0.setId(1L);
+    	given(service.search("salvador", null, PersonService.DEFAULT_PAGE_SIZE))
+    		.willReturn(new PersonPage<>(List.of(toDTO(person0)), "b2Zmc2V0OjIw"));
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person/search").param("q", "salvador"));
+    	
+    	// Then
+    	response
+    		.andExpect(status().isOk())
+    		.andExpect(jsonPath("$.content[0].address", is(person0.getAddress())))
+    		.andExpect(jsonPath("$.nextCursor", is("b2Zmc2V0OjIw")));
+    }
+    
+    /**
+     * search testing com consulta em branco: nenhuma consulta é feita,
+     * @return Bad Request - HTTP status 400
+     * */
+    @Test
+    @DisplayName("JUnit test - Given blank query when search, then return HTTP status Bad Request without querying")
+    void testGivenBlankQuery_WhenSearch_thenReturnBadRequestWithoutQuerying() throws Exception {
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person/search").param("q", " "));
+    	
+    	// Then
+    	response.andExpect(status().isBadRequest())
+    		.andExpect(jsonPath("$.errors[0].field", is("q")));
+    	verify(service, never()).search(any(), any(), anyInt());
+    }
+    
+    /**
+     * suggest testing,
+     * @return names starting with the prefix, without checking the table version
+     * */
+    @Test
+    @DisplayName("JUnit test - Given prefix when suggest, then return matching names")
+    void testGivenPrefix_WhenSuggest_thenReturnMatchingNames() throws Exception {
+    	// Given
+    	given(service.suggest("jo", PersonService.DEFAULT_SUGGESTIONS))
+    		.willReturn(List.of(new PersonSuggestion(1L, "João", "Castro")));
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person/suggest").param("prefix", "jo"));
+    	
+    	// Then
+    	response
+    		.andExpect(status().isOk())
+    		.andExpect(jsonPath("$.size()", is(1)))
+    		.andExpect(jsonPath("$[0].firstName", is("João")))
+    		.andExpect(jsonPath("$[0].email").doesNotExist());
+    	verify(service, never()).findTableVersion();
+    }
+    
+    @Test
+    @DisplayName("JUnit test - Given email when findByEmail, then return person")
+    void testGivenEmail_WhenFindByEmail_thenReturnPerson() throws Exception {
+    	// Given
+    	given(service.findByEmail(person0.getEmail())).willReturn(toDTO(person0));
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person").param("email", person0.getEmail()));
+    	
+    	// Then
+    	response
+    		.andExpect(status().isOk())
+    		.andExpect(jsonPath("$.firstName", is(person0.getFirstName())));
+    }
+    
+    /**
+     * findByEmail, findById e update testing in a negative scenario,
+     * @return Not Found - HTTP status 404, contado no meter person.errors
+     * */
+    @Test
+    @DisplayName("JUnit test - Given unknown email or id when find or update, then return HTTP status Not Found and count the errors")
+    void testGivenUnknownEmailOrId_WhenFindOrUpdate_thenReturnNotFoundAndCountErrors() throws Exception {
+    	// Given
+    	meterRegistry.clear(); // O registry é compartilhado entre os testes do contexto
+    	given(service.findByEmail("unknown@gmail.com"))
+    		.willThrow(new ResourceNotFoundException("No records found for this email: unknown@gmail.com"));
+    	given(service.findById(99L))
+    		.willThrow(new ResourceNotFoundException("No records found for this id: 99"));
+    	given(service.update(any(Person.class), any()))
+    		.willThrow(new ResourceNotFoundException("No records found for this id: 99"));
+    	person0.setId(99L);
+    	
+    	// When / Then
+    	mockMvc.perform(get("/person").param("email", "unknown@gmail.com"))
+    		.andExpect(status().isNotFound());
+    	mockMvc.perform(get("/person/{id}", 99L))
+    		.andExpect(status().isNotFound())
+    		.andExpect(jsonPath("$.message", is("No records found for this id: 99")));
+    	mockMvc.perform(put("/person")
+    			.contentType(MediaType.APPLICATION_JSON)
+    			.content(mapper.writeValueAsString(person0)))
+    		.andExpect(status().isNotFound());
+    	
+    	assertEquals(3.0, meterRegistry.get(CustomizedResponseEntityExceptionHandler.ERRORS_METER)
+    			.tags("status", "404", "exception", "ResourceNotFoundException")
+    			.counter().count());
+    }
+    
+    /**
+     * findPage testing in a negative scenario,
+     * @return Bad Request - HTTP status 400
+     * */
+    @Test
+    @DisplayName("JUnit test - Given invalid cursor when findPage, then return HTTP status Bad Request")
+    void testGivenInvalidCursor_WhenFindPage_thenReturnBadRequest() throws Exception {
+    	// Given
+    	given(service.findPage(any(), anyInt())).willThrow(new InvalidRequestException("Invalid cursor: ???"));
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person").param("after", "???"));
+    	
+    	// Then
+    	response
+    		.andExpect(status().isBadRequest())
+    		.andExpect(jsonPath("$.message", is("Invalid cursor: ???")));
+    }
+    
+    /**
+     * export testing with NDJSON,
+     * @return one JSON object per line
+     * */
+    @Test
+    @DisplayName("JUnit test - Given persons when export as NDJSON, then stream one JSON object per line")
+    void testGivenPersons_WhenExportNdjson_thenStreamOneObjectPerLine() throws Exception {
+    	// Given
+    	Person person1 = new Person("Tânia", "Leal", "tan@hotmail.com", "Paulo Afonso - BA - Brasil", "Female");
+    	givenExportedPersons(person0, person1);
+    	
+    	// When
+    	MvcResult result = mockMvc.perform(get("/person/export").accept(MediaType.APPLICATION_NDJSON))
+    			.andExpect(request().asyncStarted())
+    			.andReturn();
+    	
+    	// Then
+    	mockMvc.perform(asyncDispatch(result))
+    		.andExpect(status().isOk())
+    		.andExpect(content().bytes((mapper.writeValueAsString(person0) + "\n" + mapper.writeValueAsString(person1) + "\n")
+    				.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    /**
+     * export testing with a JSON array,
+     * @return all persons in a single JSON array
+     * */
+    @Test
+    @DisplayName("JUnit test - Given persons when export as JSON, then stream a single JSON array")
+    void testGivenPersons_WhenExportJson_thenStreamJsonArray() throws Exception {
+    	// Given
+    	Person person1 = new Person("Tânia", "Leal", "tan@hotmail.com", "Paulo Afonso - BA - Brasil", "Female");
+    	givenExportedPersons(person0, person1);
+    	
+    	// When
+    	MvcResult result = mockMvc.perform(get("/person/export").accept(MediaType.APPLICATION_JSON))
+    			.andExpect(request().asyncStarted())
+    			.andReturn();
+    	
+    	// Then
+    	mockMvc.perform(asyncDispatch(result))
+    		.andExpect(status().isOk())
+    		.andExpect(jsonPath("$.size()", is(2)))
+    		.andExpect(jsonPath("$[1].email", is(person1.getEmail())));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void givenExportedPersons(Person... persons) {
+    	willAnswer(invocation -> {
+    		Consumer<PersonDTO> consumer = invocation.getArgument(0);
+    		for (Person person : persons) {
+    			consumer.accept(toDTO(person));
+    		}
+    		return null;
+    	}).given(service).exportAll(any(Consumer.class));
+    }
+    
+    /**
+     * findById testing with ETag,
+     * @return person and its row version as ETag
+     * */
+    @Test
+    @DisplayName("JUnit test - Given personId when findById, then return person with its version as ETag")
+    void testGivenPersonId_WhenFindById_thenReturnPersonWithETag() throws Exception {
+    	// Given
+    	person0.setId(1L);
+    	person0.setVersion(3L);
+    	given(service.findById(1L)).willReturn(toDTO(person0));
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person/{id}", 1L));
+    	
+    	// Then
+    	response
+    		.andExpect(status().isOk())
+    		.andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+    		.andExpect(jsonPath("$.email", is(person0.getEmail())));
+    }
+    
+    /**
+     * findById testing with a matching If-None-Match,
+     * @return Not Modified - HTTP status 304 without loading the person
+     * */
+    @Test
+    @DisplayName("JUnit test - Given matching If-None-Match when findById, then return HTTP status Not Modified")
+    void testGivenMatchingIfNoneMatch_WhenFindById_thenReturnNotModified() throws Exception {
+    	// Given
+    	given(service.findVersionById(1L)).willReturn(3L);
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, "\"3\""));
+    	
+    	// Then
+    	response
+    		.andExpect(status().isNotModified())
+    		.andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+    		.andExpect(content().string(""));
+    	verify(service, never()).findById(any());
+    }
+    
+    /**
+     * findPage testing with a matching If-None-Match,
+     * @return Not Modified - HTTP status 304 without querying the page
+     * */
+    @Test
+    @DisplayName("JUnit test - Given unchanged table version when findPage, then return HTTP status Not Modified")
+    void testGivenUnchangedTableVersion_WhenFindPage_thenReturnNotModified() throws Exception {
+    	// Given
+    	given(service.findTableVersion()).willReturn("42-7");
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(get("/person").header(HttpHeaders.IF_NONE_MATCH, "\"42-7\""));
+    	
+    	// Then
+    	response.andExpect(status().isNotModified());
+    	verify(service, never()).findPage(any(), anyInt());
+    }
+    
     /**
      * findById testing in a negative scenario,
      * @return Not Found - HTTP status 404
@@ -165,9 +716,9 @@ public class PersonControllerTest {
     	
     	// Given
     	Long personId = 1L;
-    	given(service.findById(personId)).willReturn(person0);
-    	given(service.update(any(Person.class)))
-    	.willAnswer( (invocation) -> invocation.getArgument(0) );
+    	given(service.findById(personId)).willReturn(toDTO(person0));
+    	given(service.update(any(Person.class), any()))
+    	.willAnswer( (invocation) -> toDTO(invocation.getArgument(0)) );
     	
     	// When
     	Person updatedPerson = new Person(
@@ -205,8 +756,8 @@ public class PersonControllerTest {
     	given(service.findById(personId))
     		.willThrow(new ResourceNotFoundException("No records found for this id: " + personId));
     	
-    	given(service.update(any(Person.class)))
-    		.willAnswer( (invocation) -> invocation.getArgument(1) );
+    	given(service.update(any(Person.class), any()))
+    		.willThrow(new ResourceNotFoundException("No records found for this id: " + personId));
     	
 		// When
         Person updatedPerson = new Person(
@@ -228,6 +779,123 @@ public class PersonControllerTest {
 	    	.andDo(print());
 	}
     
+    /**
+     * update testing with a body without id: the real service rejects it before using its caches
+     * @return Not Found - HTTP status 404
+     * */
+    @Test
+    @DisplayName("JUnit test - Given Person object without id when update, then return HTTP status Not Found")
+    void testGivenPersonObjectWithoutId_WhenUpdate_thenReturnNotFound() throws Exception {
+    	
+    	// Given
+    	given(service.update(any(Person.class), any())).willCallRealMethod();
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(put("/person")
+    			.contentType(MediaType.APPLICATION_JSON)
+    			.content(mapper.writeValueAsString(person0))
+    		);
+    	
+    	// Then
+    	response.andDo(print())
+    		.andExpect(status().isNotFound());
+    }
+    
+    /**
+     * update testing with an email registered by another person
+     * @return Conflict - HTTP status 409
+     * */
+    @Test
+    @DisplayName("JUnit test - Given email of another person when update, then return HTTP status Conflict")
+    void testGivenEmailOfAnotherPerson_WhenUpdate_thenReturnConflict() throws Exception {
+    	
+    	// Given
+    	given(service.update(any(Person.class), any()))
+    		.willThrow(new DuplicateRegistrationException("Person already exist with given email: " + person0.getEmail()));
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(put("/person")
+    			.contentType(MediaType.APPLICATION_JSON)
+    			.content(mapper.writeValueAsString(person0))
+    		);
+    	
+    	// Then
+    	response.andDo(print())
+    		.andExpect(status().isConflict())
+    		.andExpect(jsonPath("$.message", is("Person already exist with given email: " + person0.getEmail())));
+    }
+    
+    @Test
+    @DisplayName("JUnit test - Given If-Match when update, then pass expected version and return new ETag")
+    void testGivenIfMatch_WhenUpdate_thenReturnNewETag() throws Exception {
+    	
+    	// Given
+    	given(service.update(any(Person.class), eq(3L))).willAnswer(invocation -> {
+    		Person person = invocation.getArgument(0);
+    		person.setVersion(4L);
+    		return toDTO(person);
+    	});
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(put("/person")
+    			.header(HttpHeaders.IF_MATCH, "\"3\"")
+    			.contentType(MediaType.APPLICATION_JSON)
+    			.content(mapper.writeValueAsString(person0))
+    		);
+    	
+    	// Then
+    	response.andDo(print())
+    		.andExpect(status().isOk())
+    		.andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+    
+    @Test
+    @DisplayName("JUnit test - Given stale or weak If-Match when update, then return HTTP status Precondition Failed")
+    void testGivenStaleIfMatch_WhenUpdate_thenReturnPreconditionFailed() throws Exception {
+    	
+    	// Given
+    	given(service.update(any(Person.class), eq(3L)))
+    		.willThrow(new PreconditionFailedException("Person was modified concurrently, version is no longer: 3"));
+    	
+    	// When / Then
+    	mockMvc.perform(put("/person")
+    			.header(HttpHeaders.IF_MATCH, "\"3\"")
+    			.contentType(MediaType.APPLICATION_JSON)
+    			.content(mapper.writeValueAsString(person0)))
+    		.andExpect(status().isPreconditionFailed());
+    	
+    	mockMvc.perform(put("/person")
+    			.header(HttpHeaders.IF_MATCH, "W/\"3\"")
+    			.contentType(MediaType.APPLICATION_JSON)
+    			.content(mapper.writeValueAsString(person0)))
+    		.andExpect(status().isPreconditionFailed());
+    }
+    
+    @Test
+    @DisplayName("JUnit test - Given merge patch when patch, then return patched person with new ETag")
+    void testGivenMergePatch_WhenPatch_thenReturnPatchedPerson() throws Exception {
+    	
+    	// Given
+    	given(service.patch(eq(1L), eq(Map.of("address", "Recife - PE - Brasil")), eq(3L))).willAnswer(invocation -> {
+    		person0.setAddress("Recife - PE - Brasil");
+    		person0.setVersion(4L);
+    		return toDTO(person0);
+    	});
+    	
+    	// When
+    	ResultActions response = mockMvc.perform(patch("/person/{id}", 1L)
+    			.header(HttpHeaders.IF_MATCH, "\"3\"")
+    			.contentType(PersonController.MERGE_PATCH_JSON_VALUE)
+    			.content("{\"address\":\"Recife - PE - Brasil\"}")
+    		);
+    	
+    	// Then
+    	response.andDo(print())
+    		.andExpect(status().isOk())
+    		.andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+    		.andExpect(jsonPath("$.address", is("Recife - PE - Brasil")));
+    }
+    
     /**
      * delete testing in a positive scenario
      * @return No Content - HTTP status 204
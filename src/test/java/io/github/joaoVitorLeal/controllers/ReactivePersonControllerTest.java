@@ -0,0 +1,269 @@
+package io.github.joaoVitorLeal.controllers;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.exceptions.DuplicateRegistrationException;
+import io.github.joaoVitorLeal.exceptions.PreconditionFailedException;
+import io.github.joaoVitorLeal.exceptions.ResourceNotFoundException;
+import io.github.joaoVitorLeal.model.Person;
+import io.github.joaoVitorLeal.services.ReactivePersonService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for {@link ReactivePersonController}.
+ *
+ * @WebFluxTest carrega apenas a camada web reativa; o profile "reactive" ativa o controller e o handler de exceções reativos.
+ */
+@WebFluxTest(ReactivePersonController.class)
+@ActiveProfiles("reactive")
+public class ReactivePersonControllerTest {
+	
+	@Autowired
+	private WebTestClient webTestClient;
+	
+	@MockitoBean
+	private ReactivePersonService service;
+	
+	private Person person0;
+	private PersonDTO personDTO0;
+	
+	@BeforeEach
+	void setup() {
+		// Given
+		person0 = new Person(1L, "João", "Castro", "joaoleal98@outlook.com", "Salvador - BA - Brasil", "Male");
+		person0.setVersion(3L);
+		personDTO0 = new PersonDTO(1L, "João", "Castro", "joaoleal98@outlook.com", "Salvador - BA - Brasil", "Male", 3L);
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given personId when findById, then return person with its version as ETag")
+	void testGivenPersonId_WhenFindById_thenReturnPersonWithETag() {
+		// Given
+		given(service.findById(1L)).willReturn(Mono.just(personDTO0));
+		
+		// When / Then
+		webTestClient.get().uri("/person/{id}", 1L)
+			.exchange()
+			.expectStatus().isOk()
+			.expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+			.expectBody()
+				.jsonPath("$.firstName").isEqualTo("João")
+				.jsonPath("$.version").doesNotExist();
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given matching If-None-Match when findById, then return HTTP status Not Modified")
+	void testGivenMatchingIfNoneMatch_WhenFindById_thenReturnNotModified() {
+		// Given
+		given(service.findById(1L)).willReturn(Mono.just(personDTO0));
+		
+		// When / Then
+		webTestClient.get().uri("/person/{id}", 1L)
+			.header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+			.exchange()
+			.expectStatus().isNotModified()
+			.expectBody().isEmpty();
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given invalid personId when findById, then return HTTP status Not Found")
+	void testGivenInvalidPersonId_WhenFindById_thenReturnNotFound() {
+		// Given
+		given(service.findById(1L)).willReturn(Mono.error(new ResourceNotFoundException("No records found for this id: 1")));
+		
+		// When / Then
+		webTestClient.get().uri("/person/{id}", 1L)
+			.exchange()
+			.expectStatus().isNotFound();
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given failing database when findById, then return HTTP status Internal Server Error")
+	void testGivenFailingDatabase_WhenFindById_thenReturnInternalServerError() {
+		// Given
+		given(service.findById(1L)).willReturn(Mono.error(new IllegalStateException("Connection refused")));
+		
+		// When / Then: only a missing person is a 404
+		webTestClient.get().uri("/person/{id}", 1L)
+			.exchange()
+			.expectStatus().is5xxServerError();
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given unchanged table version when findPage, then return HTTP status Not Modified without querying")
+	void testGivenUnchangedTableVersion_WhenFindPage_thenReturnNotModified() {
+		// Given
+		given(service.findTableVersion()).willReturn(Mono.just("42-7"));
+		
+		// When / Then
+		webTestClient.get().uri("/person")
+			.header(HttpHeaders.IF_NONE_MATCH, "\"42-7\"")
+			.exchange()
+			.expectStatus().isNotModified();
+		verify(service, never()).findPage(any(), anyInt());
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given Person object when create Person, then return saved Person and its location")
+	void testGivenPersonObject_WhenCreatePerson_thenReturnSavedPerson() {
+		// Given
+		given(service.create(any(Person.class))).willReturn(Mono.just(personDTO0));
+		
+		// When / Then
+		webTestClient.post().uri("/person")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(person0)
+			.exchange()
+			.expectStatus().isCreated()
+			.expectHeader().valueMatches(HttpHeaders.LOCATION, ".*/person/1")
+			.expectBody().jsonPath("$.email").isEqualTo("joaoleal98@outlook.com");
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given invalid Person when create Person, then return HTTP status Bad Request with field errors")
+	void testGivenInvalidPerson_WhenCreatePerson_thenReturnBadRequestWithFieldErrors() {
+		// Given
+		person0.setEmail("not-an-email");
+		
+		// When / Then
+		webTestClient.post().uri("/person")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(person0)
+			.exchange()
+			.expectStatus().isBadRequest()
+			.expectBody()
+				.jsonPath("$.errors.length()").isEqualTo(1)
+				.jsonPath("$.errors[0].field").isEqualTo("email")
+				.jsonPath("$.details").isEqualTo("uri=/person");
+		verify(service, never()).create(any());
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given registered email when create Person, then return HTTP status Conflict with the error details")
+	void testGivenRegisteredEmail_WhenCreatePerson_thenReturnConflict() {
+		// Given
+		given(service.create(any(Person.class)))
+			.willReturn(Mono.error(new DuplicateRegistrationException("Person already exist with given email: joaoleal98@outlook.com")));
+		
+		// When / Then
+		webTestClient.post().uri("/person")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(person0)
+			.exchange()
+			.expectStatus().isEqualTo(409)
+			.expectBody()
+				.jsonPath("$.message").isEqualTo("Person already exist with given email: joaoleal98@outlook.com")
+				.jsonPath("$.details").isEqualTo("uri=/person");
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given email of another person when update, then return HTTP status Conflict")
+	void testGivenEmailOfAnotherPerson_WhenUpdate_thenReturnConflict() {
+		// Given
+		given(service.update(any(Person.class), isNull()))
+			.willReturn(Mono.error(new DuplicateRegistrationException("Person already exist with given email: joaoleal98@outlook.com")));
+		
+		// When / Then
+		webTestClient.put().uri("/person")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(person0)
+			.exchange()
+			.expectStatus().isEqualTo(409)
+			.expectBody()
+				.jsonPath("$.message").isEqualTo("Person already exist with given email: joaoleal98@outlook.com");
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given unexistent person when update, then return HTTP status Not Found")
+	void testGivenUnexistentPerson_WhenUpdate_thenReturnNotFound() {
+		// Given
+		given(service.update(any(Person.class), isNull()))
+			.willReturn(Mono.error(new ResourceNotFoundException("No records found for this id: 1")));
+		
+		// When / Then
+		webTestClient.put().uri("/person")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(person0)
+			.exchange()
+			.expectStatus().isNotFound();
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given stale If-Match when update, then return HTTP status Precondition Failed")
+	void testGivenStaleIfMatch_WhenUpdate_thenReturnPreconditionFailed() {
+		// Given
+		given(service.update(any(Person.class), eq(2L)))
+			.willReturn(Mono.error(new PreconditionFailedException("Person was modified concurrently, version is no longer: 2")));
+		
+		// When / Then
+		webTestClient.put().uri("/person")
+			.header(HttpHeaders.IF_MATCH, "\"2\"")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(person0)
+			.exchange()
+			.expectStatus().isEqualTo(412);
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given persons when export as NDJSON, then stream one JSON object per line")
+	void testGivenPersons_WhenExportNdjson_thenStreamOneObjectPerLine() {
+		// Given
+		Person person1 = new Person(2L, "Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female");
+		given(service.exportAll()).willReturn(Flux.just(personDTO0,
+				new PersonDTO(2L, "Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female", 0L)));
+		
+		// When / Then
+		webTestClient.get().uri("/person/export")
+			.accept(MediaType.APPLICATION_NDJSON)
+			.exchange()
+			.expectStatus().isOk()
+			.expectBodyList(Person.class).hasSize(2).contains(person0, person1);
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given personId when delete, then return HTTP status No Content")
+	void testGivenPersonId_WhenDelete_thenReturnNoContent() {
+		// Given
+		given(service.delete(1L)).willReturn(Mono.empty());
+		
+		// When / Then
+		webTestClient.delete().uri("/person/{id}", 1L)
+			.exchange()
+			.expectStatus().isNoContent();
+	}
+	
+	@Test
+	@DisplayName("JUnit test - Given list of Persons when upsert batch, then return HTTP status No Content")
+	void testGivenListOfPersons_WhenUpsertBatch_thenReturnNoContent() {
+		// Given
+		given(service.upsertAllByEmail(List.of(person0))).willReturn(Mono.empty());
+		
+		// When / Then
+		webTestClient.put().uri("/person/batch")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(List.of(person0))
+			.exchange()
+			.expectStatus().isNoContent();
+	}
+}
@@ -0,0 +1,186 @@
+package io.github.joaoVitorLeal.integrationtests.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.integrationtests.testcontainers.AbstractIntegrationTest;
+import io.github.joaoVitorLeal.model.Person;
+import io.github.joaoVitorLeal.repositories.PersonRepository;
+
+// Mesma carga para os dois modos de execução (platform threads x virtual threads), só roda com -Dbenchmark=true:
+// mvn test -Dtest='*ThreadsBenchmarkTest' -Dbenchmark=true
+// O banco é deixado lento de propósito (SlowDatabaseConfig) para reproduzir o episódio de banco lento
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Import(AbstractThreadModeBenchmark.SlowDatabaseConfig.class)
+public abstract class AbstractThreadModeBenchmark extends AbstractIntegrationTest {
+	
+	private static final int PERSONS = 1000;
+	private static final int CLIENTS = 400; // Mais clientes simultâneos que as 200 threads padrão do Tomcat
+	private static final int REQUESTS = 20000;
+	
+	// Tempo que cada uso de conexão passa no banco, além das próprias queries
+	static final Duration DATABASE_DELAY = Duration.ofMillis(20);
+	
+	private final Logger logger = Logger.getLogger(getClass().getName());
+	
+	@LocalServerPort
+	private int port;
+	
+	@Autowired
+	private PersonRepository repository;
+	
+	protected abstract String mode();
+	
+	/**
+	 * Latências de um tipo de requisição, em milissegundos.
+	 */
+	protected record Percentiles(double p50, double p99) {
+		
+		static Percentiles of(long[] latencies) {
+			long[] sorted = latencies.clone();
+			Arrays.sort(sorted);
+			return new Percentiles(sorted[(int) (sorted.length * 0.50)] / 1e6, sorted[(int) (sorted.length * 0.99)] / 1e6);
+		}
+	}
+	
+	@Test
+	void benchmark() throws Exception {
+		// Given
+		if (repository.count() < PERSONS) {
+			repository.batchInsert(IntStream.range(0, PERSONS)
+					.mapToObj(i -> new Person("First" + i, "Last" + i, mode() + i + "@benchmark.com", "Address " + i, "Female"))
+					.toList());
+		}
+		List<Long> ids = repository.findDTOsByIdGreaterThan(0L, Limit.of(PERSONS)).stream()
+				.map(PersonDTO::id)
+				.toList();
+		HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+		run(client, ids, REQUESTS / 10); // Aquecimento (JIT, pool de conexões, caches)
+		
+		// When
+		long[] latencies = run(client, ids, REQUESTS);
+		
+		// Then
+		long totalNanos = latencies[latencies.length - 1];
+		Percentiles database = Percentiles.of(everyOther(latencies, 0));
+		Percentiles cache = Percentiles.of(everyOther(latencies, 1));
+		logger.info(String.format("%s threads: %d requests, %d clients, %.0f req/s, database p50 %.1f ms p99 %.1f ms, "
+				+ "cache p50 %.1f ms p99 %.1f ms", mode(), REQUESTS, CLIENTS, REQUESTS / (totalNanos / 1e9),
+				database.p50(), database.p99(), cache.p50(), cache.p99()));
+		
+		assertTrue(database.p50() >= DATABASE_DELAY.toMillis(), "the artificial database delay must apply: " + database);
+		assertLatencies(database, cache);
+	}
+	
+	/**
+	 * Verificações próprias de cada modo, depois que todas as requisições responderam 200.
+	 */
+	protected void assertLatencies(Percentiles database, Percentiles cache) {
+	}
+	
+	// Metade das requisições vai ao banco (página por cursor), metade ao cache (busca por id)
+	private long[] run(HttpClient client, List<Long> ids, int requests) throws Exception {
+		long[] latencies = new long[requests + 1];
+		AtomicInteger next = new AtomicInteger();
+		long start = System.nanoTime();
+		try (ExecutorService clients = Executors.newFixedThreadPool(CLIENTS)) {
+			List<Future<?>> results = new ArrayList<>();
+			for (int c = 0; c < CLIENTS; c++) {
+				results.add(clients.submit(() -> {
+					for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+						Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+						String path = i % 2 == 0 ? "/person?limit=50&after=" + cursor(id) : "/person/" + id;
+						HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+						long sent = System.nanoTime();
+						HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+						latencies[i] = System.nanoTime() - sent;
+						assertEquals(200, response.statusCode(), path);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		}
+		latencies[requests] = System.nanoTime() - start;
+		return latencies;
+	}
+	
+	// Latências das requisições de índice par (banco) ou ímpar (cache), sem o tempo total guardado no fim
+	private static long[] everyOther(long[] latencies, int first) {
+		return IntStream.iterate(first, i -> i < latencies.length - 1, i -> i + 2)
+				.mapToLong(i -> latencies[i])
+				.toArray();
+	}
+	
+	// Mesmo formato opaco de PersonCursor
+	private static String cursor(Long afterId) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(("id:" + afterId).getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Pool de conexões configurado como o auto-configurado (propriedades spring.datasource.hikari.* dos profiles
+	 * ativos), mas em que cada conexão emprestada passa DATABASE_DELAY no banco ("select sleep") antes de ser usada.
+	 * DataSourceConfig continua envolvendo o pool no proxy lazy, então requisições atendidas pelo cache não pagam o atraso.
+	 */
+	@TestConfiguration(proxyBeanMethods = false)
+	static class SlowDatabaseConfig {
+		
+		@Bean
+		@ConfigurationProperties("spring.datasource.hikari")
+		HikariDataSource dataSource(DataSourceProperties properties) {
+			return properties.initializeDataSourceBuilder().type(SlowHikariDataSource.class).build();
+		}
+	}
+	
+	static class SlowHikariDataSource extends HikariDataSource {
+		
+		@Override
+		public Connection getConnection() throws SQLException {
+			Connection connection = super.getConnection();
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("select sleep(" + DATABASE_DELAY.toMillis() / 1000.0 + ")");
+			} catch (SQLException e) {
+				connection.close();
+				throw e;
+			}
+			return connection;
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package io.github.joaoVitorLeal.integrationtests.benchmark;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.threads.virtual.enabled=false")
+@ActiveProfiles("test")
+public class PlatformThreadsBenchmarkTest extends AbstractThreadModeBenchmark {
+	
+	@Override
+	protected String mode() {
+		return "platform";
+	}
+}
@@ -0,0 +1,40 @@
+package io.github.joaoVitorLeal.integrationtests.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// O profile virtual-threads, e não só spring.threads.virtual.enabled, para medir com o pool e o timeout dele
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({ "test", "virtual-threads" })
+public class VirtualThreadsBenchmarkTest extends AbstractThreadModeBenchmark {
+	
+	@Autowired
+	private DataSource dataSource;
+	
+	@Override
+	protected String mode() {
+		return "virtual";
+	}
+	
+	@BeforeEach
+	void assertVirtualThreadsPool() throws Exception {
+		HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+		assertEquals(20, pool.getMaximumPoolSize());
+		assertEquals(2000, pool.getConnectionTimeout());
+	}
+	
+	// As requisições atendidas pelo cache não esperam por threads presas no banco lento
+	@Override
+	protected void assertLatencies(Percentiles database, Percentiles cache) {
+		assertTrue(cache.p50() < DATABASE_DELAY.toMillis(), "cache hits must not wait for the database: " + cache);
+	}
+}
@@ -0,0 +1,108 @@
+package io.github.joaoVitorLeal.integrationtests.controllers;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.github.joaoVitorLeal.config.TestConfigs;
+import io.github.joaoVitorLeal.integrationtests.testcontainers.AbstractIntegrationTest;
+import io.github.joaoVitorLeal.model.Person;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.specification.RequestSpecification;
+
+/**
+ * Verifica pelas métricas do pool (hikaricp.*) que as requisições atendidas pelo PersonCache, ou rejeitadas 
+ * pela validação, não emprestam nenhuma conexão JDBC (LazyConnectionDataSourceProxy, ver DataSourceConfig).
+ */
+// O poller do change log é afastado para que nenhuma tarefa agendada use o pool durante a medição
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "person.change-log.poll-interval=1h")
+@ActiveProfiles("test")
+public class PersonConnectionUsageIntegrationTest extends AbstractIntegrationTest {
+	
+	@LocalServerPort
+	private int port;
+	
+	@Autowired
+	private MeterRegistry meterRegistry;
+	
+	private RequestSpecification specification;
+	
+	@BeforeEach
+	void setup() {
+		specification = new RequestSpecBuilder()
+				.setBasePath("/person")
+				.setPort(port)
+				.build();
+	}
+	
+	@Test
+	@DisplayName("JUnit Integration test - Given a cached Person, when find it and send invalid requests, should borrow no connection")
+	void givenCachedPerson_whenFindByIdAndSendInvalidRequests_shouldBorrowNoConnection() {
+		// Given: uma pessoa criada e lida uma vez, o que a coloca no PersonCache
+		Person person = new Person("Conexão", "Lazy", "lazy.connection@gmail.com", "Salvador - BA - Brasil", "Male");
+		Long id = given()
+				.spec(specification)
+				.contentType(TestConfigs.CONTENT_TYPE_JSON)
+				.body(person)
+			.when()
+				.post()
+			.then()
+				.statusCode(201)
+				.extract()
+					.jsonPath().getLong("id");
+		
+		given().spec(specification).pathParam("id", id).when().get("/{id}").then().statusCode(200);
+		
+		double acquired = acquiredConnections();
+		double active = activeConnections();
+		
+		// When: leituras atendidas pelo cache
+		for (int i = 0; i < 5; i++) {
+			given().spec(specification).pathParam("id", id).when().get("/{id}").then().statusCode(200);
+		}
+		
+		// And: requisições rejeitadas pela validação antes de qualquer query
+		given()
+			.spec(specification)
+			.contentType(TestConfigs.CONTENT_TYPE_JSON)
+			.body(new Person(" ", "Lazy", "not-an-email", "Salvador - BA - Brasil", "Male"))
+		.when()
+			.post()
+		.then()
+			.statusCode(400);
+		
+		given()
+			.spec(specification)
+			.contentType(TestConfigs.CONTENT_TYPE_JSON)
+			.pathParam("id", id)
+			.body(Map.of("email", "not-an-email"))
+		.when()
+			.patch("/{id}")
+		.then()
+			.statusCode(400);
+		
+		given().spec(specification).queryParam("limit", 0).when().get().then().statusCode(400);
+		
+		// Then
+		assertEquals(acquired, acquiredConnections(), "No connection must be borrowed from the pool");
+		assertEquals(active, activeConnections(), "No connection must be left in use");
+	}
+	
+	private double acquiredConnections() {
+		return meterRegistry.get("hikaricp.connections.acquire").tag("pool", "primary").timer().count();
+	}
+	
+	private double activeConnections() {
+		return meterRegistry.get("hikaricp.connections.active").tag("pool", "primary").gauge().value();
+	}
+}
@@ -3,6 +3,7 @@ package io.github.joaoVitorLeal.integrationtests.controllers;
 import static io.restassured.RestAssured.given;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -16,7 +17,11 @@ import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -35,6 +40,8 @@ import io.restassured.specification.RequestSpecification;
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT) // Carrega o contexto completo e sobe o servidor na porta definida
 @TestMethodOrder(OrderAnnotation.class)
 @ActiveProfiles("test")
+@Sql(statements = "delete from person", executionPhase = ExecutionPhase.BEFORE_TEST_CLASS) // a suíte também roda contra a stack reativa, no mesmo banco
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS) // libera a porta definida para o contexto da próxima suíte
 public class PersonControllerIntegrationTest extends AbstractIntegrationTest {
 	
 	// Config do RestAssured
@@ -194,6 +201,148 @@ public class PersonControllerIntegrationTest extends AbstractIntegrationTest {
 	
 	@Test
 	@Order(4)
+	@DisplayName("JUnit Integration test - Given the ETag of a Person, when find it again with If-None-Match, should returns Not Modified")
+	void givenETagOfPerson_whenFindByIdWithIfNoneMatch_shouldReturnsNotModified() {
+		
+		String eTag = given()
+				.spec(specification)
+				.pathParam("id", person0.getId())
+			.when()
+				.get("/{id}")
+			.then()
+				.statusCode(200)
+				.extract()
+					.header("ETag");
+		
+		assertNotNull(eTag, "The response must carry an ETag");
+		
+		given()
+			.spec(specification)
+			.pathParam("id", person0.getId())
+			.header("If-None-Match", eTag)
+		.when()
+			.get("/{id}")
+		.then()
+			.statusCode(304)
+			.header("ETag", eTag);
+	}
+	
+	@Test
+	@Order(5)
+	@DisplayName("JUnit Integration test - Given a stale ETag, when update a Person via PUT with If-Match, should returns Precondition Failed")
+	void givenStaleETag_whenUpdateWithIfMatch_shouldReturnsPreconditionFailed() {
+		
+		String eTag = given()
+				.spec(specification)
+				.pathParam("id", person0.getId())
+			.when()
+				.get("/{id}")
+			.then()
+				.statusCode(200)
+				.extract()
+					.header("ETag");
+		
+		// The first conditional update matches the current version and bumps it
+		person0.setAddress("Recife - PE - Brasil");
+		String newETag = given()
+				.spec(specification)
+				.contentType(TestConfigs.CONTENT_TYPE_JSON)
+				.header("If-Match", eTag)
+				.body(person0)
+			.when()
+				.put()
+			.then()
+				.statusCode(200)
+				.extract()
+					.header("ETag");
+		
+		assertNotEquals(eTag, newETag, "A successful update must change the ETag");
+		
+		// Replaying the old ETag is a lost update and must be rejected
+		person0.setAddress("Salvador - BA - Brasil");
+		given()
+			.spec(specification)
+			.contentType(TestConfigs.CONTENT_TYPE_JSON)
+			.header("If-Match", eTag)
+			.body(person0)
+		.when()
+			.put()
+		.then()
+			.statusCode(412);
+		
+		// Restore the address expected by the next tests
+		given()
+			.spec(specification)
+			.contentType(TestConfigs.CONTENT_TYPE_JSON)
+			.header("If-Match", newETag)
+			.body(person0)
+		.when()
+			.put()
+		.then()
+			.statusCode(200);
+	}
+	
+	@Test
+	@Order(6)
+	@DisplayName("JUnit Integration test - Given a merge patch, when patch a Person via PATCH, should change only the patched field")
+	void givenMergePatch_whenPatchPerson_shouldChangeOnlyPatchedField() throws JsonMappingException, JsonProcessingException {
+		
+		String eTag = given()
+				.spec(specification)
+				.pathParam("id", person0.getId())
+			.when()
+				.get("/{id}")
+			.then()
+				.statusCode(200)
+				.extract()
+					.header("ETag");
+		
+		// A patch that changes nothing must not write, so the ETag stays the same
+		given()
+			.spec(specification)
+			.contentType("application/merge-patch+json")
+			.pathParam("id", person0.getId())
+			.body("{\"lastName\":\"Castro\"}")
+		.when()
+			.patch("/{id}")
+		.then()
+			.statusCode(200)
+			.header("ETag", eTag);
+		
+		var content = given()
+				.spec(specification)
+				.contentType("application/merge-patch+json")
+				.pathParam("id", person0.getId())
+				.header("If-Match", eTag)
+				.body("{\"address\":\"Recife - PE - Brasil\"}")
+			.when()
+				.patch("/{id}")
+			.then()
+				.statusCode(200)
+				.extract()
+					.body()
+						.asString();
+		
+		Person patchedPerson = mapper.readValue(content, Person.class);
+		
+		assertEquals("Recife - PE - Brasil", patchedPerson.getAddress(), "address should be 'Recife - PE - Brasil'");
+		assertEquals("José", patchedPerson.getFirstName(), "firstName should be 'José'");
+		assertEquals("jc_engenharia@gmail.com", patchedPerson.getEmail(), "email should be 'jc_engenharia@gmail.com'");
+		
+		// Restore the address expected by the next tests
+		given()
+			.spec(specification)
+			.contentType("application/merge-patch+json")
+			.pathParam("id", person0.getId())
+			.body("{\"address\":\"Salvador - BA - Brasil\"}")
+		.when()
+			.patch("/{id}")
+		.then()
+			.statusCode(200);
+	}
+	
+	@Test
+	@Order(7)
 	@DisplayName("JUnit Integration test - Given a list of Person, when find all via GET, should returns a list of Person object")
 	void givenPersonList_whenFindAll_shouldReturnsAllPersons() throws JsonMappingException, JsonProcessingException {
 	
@@ -215,9 +364,10 @@ public class PersonControllerIntegrationTest extends AbstractIntegrationTest {
         .then()
             .statusCode(201);
 		
-	    // find all persons
+	    // find the first page of persons
 	    var content = given()
 	            .spec(specification)
+	            .queryParam("limit", 10)
 	        .when()
 	            .get()
 	        .then()
@@ -226,8 +376,8 @@ public class PersonControllerIntegrationTest extends AbstractIntegrationTest {
 	            	.body()
 	            		.asString();
 	    
-	    // Deserialize JSON array into a list of Person objects
-	    Person[] personArray = mapper.readValue(content, Person[].class);
+	    // Deserialize the page content into a list of Person objects
+	    Person[] personArray = mapper.treeToValue(mapper.readTree(content).get("content"), Person[].class);
 	    List<Person> personList= Arrays.asList(personArray);
 	    
 	    // Validate fields of the first person in the list
@@ -272,7 +422,7 @@ public class PersonControllerIntegrationTest extends AbstractIntegrationTest {
 	}
 	
 	@Test
-	@Order(5)
+	@Order(8)
 	@DisplayName("JUnit Integration test - Given a valid Person ID, when delete a Person via DELETE, should returns No Content")
 	void givenValidPersonId_whenDelete_shouldReturnsNoContent() throws JsonMappingException, JsonProcessingException {
 		given()
@@ -283,4 +433,49 @@ public class PersonControllerIntegrationTest extends AbstractIntegrationTest {
 	    .then()
             .statusCode(204);
 	}
+	
+	@Test
+	@Order(9)
+	@DisplayName("JUnit Integration test - Given a Person with an already registered email, when create via POST, should returns Conflict")
+	void givenPersonWithRegisteredEmail_whenCreatePerson_shouldReturnsConflict() {
+		// "tan@hotmail.com" was registered by the findAll test
+		Person duplicatedPerson = new Person(
+				"Tânia",
+				"Castro",
+				"tan@hotmail.com",
+				"Salvador - BA - Brasil",
+				"Female"
+			);
+		
+		given()
+			.spec(specification)
+			.contentType(TestConfigs.CONTENT_TYPE_JSON)
+			.body(duplicatedPerson)
+		.when()
+			.post()
+		.then()
+			.statusCode(409);
+	}
+	
+	@Test
+	@Order(10)
+	@DisplayName("JUnit Integration test - Given a search query, when search via GET, should returns the matching Person first")
+	void givenSearchQuery_whenSearch_shouldReturnsMatchingPersonFirst() throws JsonMappingException, JsonProcessingException {
+		// Resolved by the FULLTEXT index: "Tânia Leal, Paulo Afonso" is the only person left, José was deleted
+		var content = given()
+				.spec(specification)
+				.queryParam("q", "Paulo Afonso")
+			.when()
+				.get("/search")
+			.then()
+				.statusCode(200)
+				.extract()
+					.body()
+						.asString();
+		
+		Person[] matches = mapper.treeToValue(mapper.readTree(content).get("content"), Person[].class);
+		
+		assertEquals(1, matches.length, "Only one person lives in Paulo Afonso");
+		assertEquals("tan@hotmail.com", matches[0].getEmail(), "email should be 'tan@hotmail.com'");
+	}
 }
@@ -0,0 +1,12 @@
+package io.github.joaoVitorLeal.integrationtests.controllers;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Executa a mesma suíte de {@link PersonControllerIntegrationTest} contra a stack reativa (WebFlux + R2DBC),
+ * garantindo os mesmos endpoints, status e headers nas duas implementações.
+ */
+@ActiveProfiles("reactive") // somado ao profile "test" herdado
+public class ReactivePersonControllerIntegrationTest extends PersonControllerIntegrationTest {
+	
+}
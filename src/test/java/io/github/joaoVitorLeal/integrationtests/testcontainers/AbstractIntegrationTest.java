@@ -19,7 +19,8 @@ public class AbstractIntegrationTest {
 	
 	static class Initializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
 		
-		static MySQLContainer<?>  mysql = new MySQLContainer<>("mysql:8.0.41"); // subir o container do MySQL em runtime, utilizando engine do MySQL na versão especificada
+		static MySQLContainer<?>  mysql = new MySQLContainer<>("mysql:8.0.41") // subir o container do MySQL em runtime, utilizando engine do MySQL na versão especificada
+				.withUrlParam("rewriteBatchedStatements", "true"); // mesmo parâmetro de conexão usado em produção (JDBC batch)
 		
 		// Método que realiza o Stream sob o mysql container e suas configurações
 		private static void startContainers() {
@@ -31,7 +32,11 @@ public class AbstractIntegrationTest {
 			return Map.of(
 					"spring.datasource.url", mysql.getJdbcUrl(),
 					"spring.datasource.username", mysql.getUsername(),
-					"spring.datasource.password", mysql.getPassword()
+					"spring.datasource.password", mysql.getPassword(),
+					// mesma base de dados acessada pela stack reativa (profile "reactive")
+					"spring.r2dbc.url", "r2dbc:mysql://" + mysql.getHost() + ":" + mysql.getMappedPort(3306) + "/" + mysql.getDatabaseName(),
+					"spring.r2dbc.username", mysql.getUsername(),
+					"spring.r2dbc.password", mysql.getPassword()
 				);
 		}
 		
@@ -30,6 +30,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.github.joaoVitorLeal.controllers.PersonController;
+import io.github.joaoVitorLeal.dto.PersonDTO;
 import io.github.joaoVitorLeal.exceptions.ResourceNotFoundException;
 import io.github.joaoVitorLeal.model.Person;
 import io.github.joaoVitorLeal.services.PersonService;
@@ -79,6 +80,11 @@ public class PersonControllerLegacyTest {
         );
     }
     
+    private static PersonDTO toDTO(Person person) {
+        return new PersonDTO(person.getId(), person.getFirstName(), person.getLastName(), person.getEmail(),
+                person.getAddress(), person.getGender(), person.getVersion());
+    }
+    
     /********************************************************************************************************
      * Tests
      ********************************************************************************************************/
@@ -92,7 +98,7 @@ public class PersonControllerLegacyTest {
 	void testGivenPersonObject_WhenCreatePerson_thenReturnSavedPerson() throws Exception, JsonProcessingException {
 		// Given
     	given(service.create(any(Person.class)))
-    		.willAnswer( (invocation) -> invocation.getArgument(0) );
+    		.willAnswer( (invocation) -> toDTO(invocation.getArgument(0)) );
     	
 		// When
         ResultActions response = mockMvc.perform(post("/person")
@@ -126,7 +132,7 @@ public class PersonControllerLegacyTest {
             "Male"
         ));
     	
-    	given(service.findAll()).willReturn(persons);
+    	given(service.findAll()).willReturn(persons.stream().map(PersonControllerLegacyTest::toDTO).toList());
     	
 		// When
         ResultActions response = mockMvc.perform(get("/person"));
@@ -168,9 +174,9 @@ public class PersonControllerLegacyTest {
     	
     	// Given
     	Long personId = 1L;
-    	given(service.findById(personId)).willReturn(person0);
+    	given(service.findById(personId)).willReturn(toDTO(person0));
     	given(service.update(any(Person.class)))
-    	.willAnswer( (invocation) -> invocation.getArgument(0) );
+    	.willAnswer( (invocation) -> toDTO(invocation.getArgument(0)) );
     	
     	// When
     	Person updatedPerson = new Person(
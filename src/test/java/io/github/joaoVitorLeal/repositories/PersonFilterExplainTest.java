@@ -0,0 +1,139 @@
+package io.github.joaoVitorLeal.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.github.joaoVitorLeal.dto.PersonFilter;
+import io.github.joaoVitorLeal.integrationtests.testcontainers.AbstractIntegrationTest;
+import io.github.joaoVitorLeal.model.Person;
+
+/**
+ * Runs EXPLAIN on the exact SQL of {@link PersonRepository#findDTOsByFilter} for every filter combination and every
+ * sort, first page and next page, and checks that MySQL never plans a full table scan.
+ *
+ * Criteria values are inlined in the SQL for this test only ("value_handling_mode=inline"), so the captured
+ * statement can be explained as is; only the LIMIT is still a parameter.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class PersonFilterExplainTest extends AbstractIntegrationTest {
+	
+	private static final int PAGE_SIZE = 21;
+	
+	@Autowired
+	private PersonRepository repository;
+	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
+	@Autowired
+	private CapturedSql capturedSql;
+	
+	@TestConfiguration
+	static class StatementCapture {
+		
+		@Bean
+		CapturedSql capturedSql() {
+			return new CapturedSql();
+		}
+		
+		@Bean
+		HibernatePropertiesCustomizer statementInspector(CapturedSql capturedSql) {
+			return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, capturedSql);
+		}
+	}
+	
+	// Records the statements Hibernate prepares
+	static class CapturedSql implements StatementInspector {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final List<String> statements = new CopyOnWriteArrayList<>();
+		
+		@Override
+		public String inspect(String sql) {
+			statements.add(sql);
+			return sql;
+		}
+		
+		String last() {
+			return statements.get(statements.size() - 1);
+		}
+	}
+	
+	@BeforeEach
+	void setup() {
+		// Given: enough rows that reading a page through an index is clearly cheaper than scanning the table
+		List<Person> persons = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			persons.add(new Person("First" + (i % 40), "Last" + (i % 30), "person" + i + "@domain" + (i % 20) + ".com",
+					"Street " + i, i % 2 == 0 ? "Female" : "Male"));
+		}
+		repository.batchInsert(persons);
+	}
+	
+	// Every non-empty combination of the four filters
+	static Stream<PersonFilter> filterCombinations() {
+		return IntStream.range(1, 16).mapToObj(mask -> new PersonFilter(
+				(mask & 1) != 0 ? "Female" : null,
+				(mask & 2) != 0 ? "Last7" : null,
+				(mask & 4) != 0 ? "First1" : null,
+				(mask & 8) != 0 ? "domain3.com" : null));
+	}
+	
+	@ParameterizedTest
+	@MethodSource("filterCombinations")
+	@DisplayName("Given a filter combination when findDTOsByFilter with each sort, then EXPLAIN shows no full table scan")
+	void testGivenFilterCombination_whenFindDTOsByFilter_thenNoFullTableScan(PersonFilter filter) {
+		for (String field : PersonSort.FIELDS) {
+			for (boolean descending : new boolean[] {false, true}) {
+				PersonSort sort = new PersonSort(field, descending);
+				
+				// When: first page, then the page after a position
+				repository.findDTOsByFilter(filter, sort, null, null, PAGE_SIZE);
+				String firstPage = capturedSql.last();
+				repository.findDTOsByFilter(filter, sort, "Last5", 100L, PAGE_SIZE);
+				String nextPage = capturedSql.last();
+				
+				// Then
+				assertNoFullTableScan(firstPage);
+				assertNoFullTableScan(nextPage);
+			}
+		}
+	}
+	
+	private void assertNoFullTableScan(String sql) {
+		String explained = sql.replace("?", String.valueOf(PAGE_SIZE)); // The LIMIT is the only parameter left
+		List<Map<String, Object>> plan = jdbcTemplate.queryForList("explain " + explained);
+		
+		assertFalse(plan.isEmpty());
+		for (Map<String, Object> row : plan) {
+			assertNotEquals("ALL", row.get("type"), () -> "Full table scan for: " + explained + "\n" + plan);
+			assertNotNull(row.get("key"), () -> "No index used for: " + explained + "\n" + plan);
+		}
+	}
+}
@@ -11,7 +11,9 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -19,8 +21,12 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.dto.PersonFilter;
 import io.github.joaoVitorLeal.integrationtests.testcontainers.AbstractIntegrationTest;
 import io.github.joaoVitorLeal.model.Person;
 
@@ -31,6 +37,9 @@ public class PersonRepositoryTest extends AbstractIntegrationTest {
 	
 	@Autowired
 	private PersonRepository repository;
+	
+	@Autowired
+	private TestEntityManager entityManager;
 
 	private Person person0;
 	
@@ -109,6 +118,192 @@ public class PersonRepositoryTest extends AbstractIntegrationTest {
 		assertThat(personList.size(), is(2));
 	}
 	
+	@Test
+	@DisplayName("Given person list when findDTOsByIdGreaterThan() is called, then return the rows after the given id")
+	void testGivenPersonList_whenFindByIdGreaterThan_thenReturnNextRowsOrderedById() {
+		// Given
+		Person person1 = new Person("Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female");
+		Person person2 = new Person("Tânia", "Leal", "tan@hotmail.com", "Paulo Afonso - BA - Brasil", "Female");
+		repository.save(person0);
+		repository.save(person1);
+		repository.save(person2);
+		
+		// When
+		List<PersonDTO> page = repository.findDTOsByIdGreaterThan(person0.getId(), Limit.of(1));
+		
+		// Then
+		assertEquals(1, page.size());
+		assertEquals(person1.getId(), page.get(0).id());
+	}
+	
+	@Test
+	@DisplayName("Given saved person when findDTOById() is called, then return its columns and version")
+	void testGivenSavedPerson_whenFindDTOById_thenReturnColumnsAndVersion() {
+		// Given
+		repository.saveAndFlush(person0);
+		
+		// When
+		Optional<PersonDTO> person = repository.findDTOById(person0.getId());
+		
+		// Then
+		assertTrue(person.isPresent());
+		assertEquals(person0.getEmail(), person.get().email());
+		assertEquals(person0.getVersion(), person.get().version());
+	}
+	
+	@Test
+	@DisplayName("Given persons when findDTOsByFilter() is called, then return the matches of every criterion in keyset pages")
+	void testGivenPersons_whenFindDTOsByFilter_thenReturnMatchesInKeysetPages() {
+		// Given
+		repository.batchInsert(List.of(
+				person0,
+				new Person("Joana", "Castro", "joana@gmail.com", "Recife - PE - Brasil", "Female"),
+				new Person("Jonas", "Alves", "jonas@gmail.com", "Recife - PE - Brasil", "Male"),
+				new Person("Joel", "Brito", "joel@gmail.com", "Natal - RN - Brasil", "Male")));
+		PersonFilter filter = new PersonFilter("Male", null, "Jo", "gmail.com"); // email_domain is computed by MySQL
+		PersonSort byLastName = new PersonSort("lastName", false);
+		
+		// When
+		List<PersonDTO> firstPage = repository.findDTOsByFilter(filter, byLastName, null, null, 1);
+		PersonDTO last = firstPage.get(0);
+		List<PersonDTO> nextPage = repository.findDTOsByFilter(filter, byLastName, last.lastName(), last.id(), 10);
+		
+		// Then
+		assertEquals("jonas@gmail.com", last.email());
+		assertEquals(List.of("joel@gmail.com"), nextPage.stream().map(PersonDTO::email).toList());
+	}
+	
+	@Test
+	@DisplayName("Given person list when batchInsert() is called, then insert all persons and set their generated ids")
+	void testGivenPersonList_whenBatchInsert_thenInsertAllAndSetIds() {
+		// Given
+		Person person1 = new Person("Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female");
+		
+		// When
+		List<Person> inserted = repository.batchInsert(List.of(person0, person1));
+		
+		// Then
+		assertNotNull(inserted.get(0).getId());
+		assertNotNull(inserted.get(1).getId());
+		assertTrue(inserted.get(1).getId() > inserted.get(0).getId());
+		assertEquals("manuarq@gmail.com", repository.findById(person1.getId()).get().getEmail());
+	}
+	
+	@Test
+	@DisplayName("Given existing and new persons when upsertAllByEmail() is called, then update by email and insert the new ones")
+	void testGivenExistingAndNewPersons_whenUpsertAllByEmail_thenUpdateAndInsert() {
+		// Given
+		repository.saveAndFlush(person0);
+		Person changedPerson0 = new Person("João", "Castro", person0.getEmail(), "Recife - PE - Brasil", "Male");
+		Person person1 = new Person("Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female");
+		
+		// When
+		int affectedRows = repository.upsertAllByEmail(List.of(changedPerson0, person1));
+		
+		// Then
+		assertEquals(3, affectedRows); // 2 for the updated row + 1 for the inserted row
+		assertEquals(2, repository.count());
+		
+		entityManager.clear(); // The upsert bypasses the persistence context, which still holds the old state
+		assertEquals("Recife - PE - Brasil", repository.findByEmail(person0.getEmail()).get().getAddress());
+	}
+	
+	@Test
+	@DisplayName("Given email changed through JDBC when findByEmail() is called, then ignore the stale natural id resolution")
+	void testGivenEmailChangedThroughJdbc_whenFindByEmail_thenIgnoreStaleResolution() {
+		// Given: the email -> id resolution is cached by a first lookup
+		repository.saveAndFlush(person0);
+		String previousEmail = person0.getEmail();
+		entityManager.clear();
+		assertEquals(person0.getId(), repository.findByEmail(previousEmail).get().getId());
+		
+		// When: the JDBC update bypasses Hibernate, only the entity is evicted (after commit in production)
+		person0.setEmail("estudosjv@gmail.com");
+		repository.updateById(person0, null);
+		entityManager.clear();
+		entityManager.getEntityManager().getEntityManagerFactory().getCache().evict(Person.class, person0.getId());
+		
+		// Then
+		assertTrue(repository.findByEmail(previousEmail).isEmpty());
+		assertEquals(person0.getId(), repository.findByEmail("estudosjv@gmail.com").get().getId());
+	}
+	
+	@Test
+	@DisplayName("Given person object when updateById() is called with a version, then update the row only at that version")
+	void testGivenPersonObject_whenUpdateByIdWithVersion_thenUpdateRowAtThatVersion() {
+		// Given
+		repository.saveAndFlush(person0);
+		Long version = person0.getVersion();
+		person0.setEmail("estudosjv@gmail.com");
+		
+		// When
+		int updatedRows = repository.updateById(person0, version);
+		int staleRows = repository.updateById(person0, version);
+		int unconditionalRows = repository.updateById(person0, null);
+		
+		// Then
+		assertEquals(1, updatedRows);
+		assertEquals(0, staleRows);
+		assertEquals(1, unconditionalRows); // Matches whatever the version
+		
+		entityManager.clear(); // The JDBC update bypasses the persistence context
+		PersonDTO updated = repository.findDTOById(person0.getId()).get();
+		assertEquals("estudosjv@gmail.com", updated.email());
+		assertEquals(version + 2, updated.version());
+	}
+	
+	@Test
+	@DisplayName("Given merge patch when patchById() is called, then write only its columns and bump the version only on change")
+	void testGivenMergePatch_whenPatchById_thenBumpVersionOnlyOnChange() {
+		// Given
+		repository.saveAndFlush(person0);
+		Long version = person0.getVersion();
+		
+		// When
+		int unchangedRows = repository.patchById(person0.getId(), Map.of("lastName", person0.getLastName()), version);
+		int patchedRows = repository.patchById(person0.getId(), Map.of("address", "Recife - PE - Brasil"), version);
+		int staleRows = repository.patchById(person0.getId(), Map.of("address", "Salvador - BA - Brasil"), version);
+		
+		// Then
+		assertEquals(1, unchangedRows); // Matched rows, not changed rows
+		assertEquals(1, patchedRows);
+		assertEquals(0, staleRows);
+		
+		entityManager.clear();
+		PersonDTO patched = repository.findDTOById(person0.getId()).get();
+		assertEquals("Recife - PE - Brasil", patched.address());
+		assertEquals(person0.getEmail(), patched.email());
+		assertEquals(version + 1, patched.version());
+	}
+	
+	@Test
+	@DisplayName("Given person object when removeById() is called, then delete the row, only at that version when given")
+	void testGivenPersonObject_whenRemoveById_thenDeleteRow() {
+		// Given
+		repository.saveAndFlush(person0);
+		
+		// When / Then
+		assertEquals(0, repository.removeById(person0.getId(), person0.getVersion() + 1));
+		assertEquals(1, repository.removeById(person0.getId(), null));
+		assertEquals(0, repository.removeById(person0.getId(), null));
+		
+		entityManager.clear();
+		assertTrue(repository.findDTOById(person0.getId()).isEmpty());
+	}
+	
+	@Test
+	@DisplayName("Given persisted person when findExistingEmails() is called, then return only the registered emails")
+	void testGivenPersistedPerson_whenFindExistingEmails_thenReturnRegisteredEmails() {
+		// Given
+		repository.save(person0);
+		
+		// When
+		Set<String> existing = repository.findExistingEmails(List.of(person0.getEmail(), "unknown@gmail.com"));
+		
+		// Then
+		assertEquals(Set.of(person0.getEmail()), existing);
+	}
+	
 	@Test
 	@DisplayName("Given person object when update() is called, then return updated person")
 	void testGivenPersonObject_whenUpdatePerson_thenReturnUpdatedPersonObject() {
@@ -218,4 +413,23 @@ public class PersonRepositoryTest extends AbstractIntegrationTest {
 		assertEquals(firstName, savedPerson.getFirstName());
 		assertEquals(email, savedPerson.getEmail());
 	}
+	
+	@Test
+	@DisplayName("Given persons when findFieldsByIdGreaterThan is called, then return only the selected fields in id order")
+	void testGivenPersons_whenFindFieldsByIdGreaterThan_thenReturnSelectedFields() {
+		// Given
+		Person person1 = new Person("Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female");
+		repository.save(person0);
+		repository.save(person1);
+		
+		// When
+		List<Map<String, Object>> rows = repository.findFieldsByIdGreaterThan(List.of("id", "firstName"), person0.getId(), 10);
+		
+		// Then
+		assertEquals(1, rows.size());
+		assertEquals(List.of("id", "firstName"), List.copyOf(rows.get(0).keySet()));
+		assertEquals(person1.getId(), rows.get(0).get("id"));
+		assertEquals("Manuela", rows.get(0).get("firstName"));
+		assertTrue(repository.findFieldsById(List.of("id"), -1L).isEmpty());
+	}
 }
@@ -0,0 +1,184 @@
+package io.github.joaoVitorLeal.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.model.Person;
+import io.github.joaoVitorLeal.repositories.PersonRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class PersonCacheTest {
+	
+	@Mock
+	private PersonRepository repository;
+	
+	@Mock
+	private ObjectProvider<MeterRegistry> meterRegistry;
+	
+	@Mock
+	private ObjectProvider<Executor> refreshExecutor;
+	
+	private PersonCache cache;
+	
+	private PersonDTO person0;
+	
+	@BeforeEach
+	void setup() {
+		given(refreshExecutor.getIfAvailable(any())).willReturn(Runnable::run);
+		cache = new PersonCache(repository, meterRegistry, refreshExecutor, 100, Duration.ofMinutes(1), Duration.ofMinutes(10));
+		person0 = new PersonDTO(1L, "João", "Castro", "joaoleal98@outlook.com", "Salvador - BA - Brasil", "Male", 0L);
+	}
+	
+	@AfterEach
+	void cleanup() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+	
+	@Test
+	@DisplayName("Given concurrent misses on the same id when findById, then load the person once")
+	void testGivenConcurrentMisses_whenFindById_thenLoadOnce() throws Exception {
+		// Given
+		CountDownLatch loading = new CountDownLatch(1);
+		given(repository.findDTOById(1L)).willAnswer(invocation -> {
+			loading.await(); // Keeps the first load in flight until every reader has asked for the key
+			return Optional.of(person0);
+		});
+		
+		// When
+		ExecutorService readers = Executors.newFixedThreadPool(8);
+		List<Future<PersonDTO>> results = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			results.add(readers.submit(() -> cache.findById(1L)));
+		}
+		Thread.sleep(100);
+		loading.countDown();
+		
+		// Then
+		for (Future<PersonDTO> result : results) {
+			assertSame(person0, result.get());
+		}
+		readers.shutdown();
+		verify(repository, times(1)).findDTOById(1L);
+	}
+	
+	@Test
+	@DisplayName("Given cached and uncached ids when findAllById, then query only the misses, in chunks")
+	void testGivenCachedAndUncachedIds_whenFindAllById_thenQueryOnlyMissesInChunks() {
+		// Given
+		given(repository.findDTOById(1L)).willReturn(Optional.of(person0));
+		cache.findById(1L);
+		List<Long> ids = new ArrayList<>();
+		for (long id = 1; id <= PersonService.IN_LIST_CHUNK_SIZE + 2; id++) { // One more miss than a chunk holds
+			ids.add(id);
+		}
+		PersonDTO person2 = new PersonDTO(2L, "Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female", 0L);
+		given(repository.findDTOsByIdIn(any())).willAnswer(invocation -> 
+				invocation.<List<Long>>getArgument(0).contains(2L) ? List.of(person2) : List.of());
+		
+		// When
+		Map<Long, PersonDTO> persons = cache.findAllById(ids);
+		
+		// Then
+		assertEquals(Map.of(1L, person0, 2L, person2), persons);
+		ArgumentCaptor<List<Long>> chunks = ArgumentCaptor.captor();
+		verify(repository, times(2)).findDTOsByIdIn(chunks.capture());
+		assertEquals(ids.size() - 1, chunks.getAllValues().stream().mapToInt(List::size).sum());
+		assertFalse(chunks.getAllValues().stream().anyMatch(chunk -> chunk.contains(1L)));
+		assertSame(person2, cache.findById(2L)); // Cached by the multi-get
+		verify(repository, never()).findDTOById(2L);
+	}
+	
+	@Test
+	@DisplayName("Given cached person when evictAfterCommit inside a transaction, then invalidate only after commit")
+	void testGivenCachedPerson_whenEvictAfterCommit_thenInvalidateAfterCommit() {
+		// Given
+		given(repository.findDTOById(1L)).willReturn(Optional.of(person0));
+		cache.findById(1L);
+		TransactionSynchronizationManager.initSynchronization();
+		
+		// When
+		cache.evictAfterCommit(1L, person0.email());
+		cache.findById(1L);
+		
+		// Then: still served from the cache until the transaction commits
+		verify(repository, times(1)).findDTOById(1L);
+		
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		cache.findById(1L);
+		verify(repository, times(2)).findDTOById(1L);
+	}
+	
+	@Test
+	@DisplayName("Given email moved to another person when findByEmail, then resolve the email again")
+	void testGivenEmailMovedToAnotherPerson_whenFindByEmail_thenResolveAgain() {
+		// Given
+		PersonDTO movedPerson0 = new PersonDTO(1L, "João", "Castro", "other@gmail.com", "Salvador - BA - Brasil", "Male", 1L);
+		PersonDTO person1 = new PersonDTO(2L, "Manuela", "Mariano", "joaoleal98@outlook.com", "Belo Horizonte - MG - Brasil", "Female", 1L);
+		given(repository.findByEmail("joaoleal98@outlook.com")).willReturn(
+				Optional.of(new Person(1L, "João", "Castro", "joaoleal98@outlook.com", "Salvador - BA - Brasil", "Male")),
+				Optional.of(new Person(2L, "Manuela", "Mariano", "joaoleal98@outlook.com", "Belo Horizonte - MG - Brasil", "Female")));
+		given(repository.findDTOById(1L)).willReturn(Optional.of(person0), Optional.of(movedPerson0));
+		given(repository.findDTOById(2L)).willReturn(Optional.of(person1));
+		assertSame(person0, cache.findByEmail("joaoleal98@outlook.com"));
+		
+		// When: another instance changed the email of person0 and gave the old one to person1
+		cache.evictAll(List.of(1L, 2L));
+		
+		// Then
+		assertEquals(2L, cache.findByEmail("joaoleal98@outlook.com").id());
+		assertNull(cache.findById(3L));
+	}
+	
+	@Test
+	@DisplayName("Given emails differing only in case when findByEmail, then resolve them once and evict them together")
+	void testGivenEmailsDifferingInCase_whenFindByEmail_thenShareOneEntry() {
+		// Given
+		given(repository.findByEmail("joaoleal98@outlook.com")).willReturn(
+				Optional.of(new Person(1L, "João", "Castro", "joaoleal98@outlook.com", "Salvador - BA - Brasil", "Male")));
+		given(repository.findDTOById(1L)).willReturn(Optional.of(person0));
+		
+		// When
+		assertSame(person0, cache.findByEmail("JoaoLeal98@Outlook.com"));
+		assertSame(person0, cache.findByEmail("joaoleal98@outlook.com"));
+		cache.evictEmailsAfterCommit(List.of("JOAOLEAL98@OUTLOOK.COM"));
+		cache.findByEmail("joaoleal98@outlook.com");
+		
+		// Then: one lookup before the eviction and one after, and no reload for a mismatched case
+		verify(repository, times(2)).findByEmail("joaoleal98@outlook.com");
+		verify(repository, times(2)).findDTOById(1L);
+	}
+}
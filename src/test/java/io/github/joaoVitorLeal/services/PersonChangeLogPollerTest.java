@@ -0,0 +1,200 @@
+package io.github.joaoVitorLeal.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.github.joaoVitorLeal.model.Person;
+import io.github.joaoVitorLeal.model.PersonChangeLog;
+import io.github.joaoVitorLeal.model.PersonChangeLog.Operation;
+import io.github.joaoVitorLeal.repositories.PersonChangeLogRepository;
+import jakarta.persistence.EntityManagerFactory;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT) // Not every test polls far enough to reach the second-level cache
+public class PersonChangeLogPollerTest {
+	
+	@Mock
+	private PersonChangeLogRepository repository;
+	
+	@Mock
+	private PersonCache personCache;
+	
+	@Mock
+	private PersonNameIndex nameIndex;
+	
+	@Mock
+	private EntityManagerFactory entityManagerFactory;
+	
+	@Mock
+	private SessionFactory sessionFactory;
+	
+	@Mock
+	private Cache secondLevelCache;
+	
+	private PersonChangeLogPoller poller;
+	
+	@BeforeEach
+	void setup() {
+		given(entityManagerFactory.unwrap(SessionFactory.class)).willReturn(sessionFactory);
+		given(sessionFactory.getCache()).willReturn(secondLevelCache);
+		given(repository.findMaxSeq()).willReturn(10L);
+		poller = new PersonChangeLogPoller(repository, personCache, nameIndex, entityManagerFactory, Duration.ofMinutes(5), 100);
+	}
+	
+	@Test
+	@DisplayName("Given new change log entries when poll, then evict the written persons from both caches and reload their names")
+	void testGivenNewEntries_whenPoll_thenEvictWrittenPersons() {
+		// Given
+		given(repository.findBySeqGreaterThanOrderBySeqAsc(10L, Limit.of(1000)))
+				.willReturn(List.of(change(11L, 1L, Operation.UPDATE), change(12L, 2L, Operation.DELETE)));
+		
+		// When
+		poller.poll();
+		
+		// Then
+		verify(secondLevelCache).evictEntityData(Person.class, 1L);
+		verify(secondLevelCache).evictEntityData(Person.class, 2L);
+		verify(secondLevelCache, never()).evictNaturalIdData(Person.class);
+		verify(secondLevelCache).evictQueryRegions();
+		verify(personCache).evictAll(Set.of(1L, 2L));
+		verify(nameIndex).refresh(Set.of(1L, 2L));
+	}
+	
+	@Test
+	@DisplayName("Given no new change log entries when poll, then evict nothing")
+	void testGivenNoNewEntries_whenPoll_thenEvictNothing() {
+		// Given
+		given(repository.findBySeqGreaterThanOrderBySeqAsc(10L, Limit.of(1000))).willReturn(List.of());
+		
+		// When
+		poller.poll();
+		
+		// Then
+		verify(personCache, never()).evictAll(any());
+		verify(secondLevelCache, never()).evictQueryRegions();
+		verify(nameIndex, never()).refresh(any());
+	}
+	
+	@Test
+	@DisplayName("Given an entry committed below one already seen when poll, then evict it on a later poll")
+	void testGivenLateCommit_whenPoll_thenEvictOnLaterPoll() {
+		// Given
+		given(repository.findBySeqGreaterThanOrderBySeqAsc(10L, Limit.of(1000)))
+				.willReturn(List.of(change(12L, 2L, Operation.CREATE)));
+		poller.poll(); // Seq 11 is still uncommitted
+		
+		given(repository.findBySeqGreaterThanOrderBySeqAsc(12L, Limit.of(1000))).willReturn(List.of());
+		given(repository.findBySeqIn(List.of(11L))).willReturn(List.of(change(11L, 1L, Operation.UPDATE)));
+		
+		// When
+		poller.poll();
+		
+		// Then
+		verify(personCache).evictAll(Set.of(2L));
+		verify(personCache).evictAll(Set.of(1L));
+		verify(secondLevelCache).evictEntityData(Person.class, 1L);
+	}
+	
+	@Test
+	@DisplayName("Given a gap that never fills when poll, then stop looking it up after the gap timeout without evicting everything")
+	void testGivenPermanentGap_whenPoll_thenExpireItWithoutEvictingEverything() {
+		// Given: seq 11 was reserved by a multi-row append that did not use it
+		given(repository.findBySeqGreaterThanOrderBySeqAsc(10L, Limit.of(1000)))
+				.willReturn(List.of(change(12L, 2L, Operation.CREATE)));
+		poller.poll();
+		poller.poll();
+		
+		@SuppressWarnings("unchecked")
+		Map<Long, Instant> gaps = (Map<Long, Instant>) ReflectionTestUtils.getField(poller, "gaps");
+		gaps.replaceAll((seq, since) -> since.minus(Duration.ofMinutes(6))); // Past the gap timeout
+		
+		// When
+		poller.poll();
+		
+		// Then
+		verify(repository, times(1)).findBySeqIn(List.of(11L));
+		verify(personCache, never()).evictAll();
+		verify(secondLevelCache, never()).evictEntityData(Person.class);
+	}
+	
+	@Test
+	@DisplayName("Given gaps piling up past the limit when poll, then give up the oldest ones without evicting everything")
+	void testGivenGapsPastLimit_whenPoll_thenGiveUpOldestGaps() {
+		// Given: two appends that each left 6000 values unused, seqs 11 to 6010 and 6012 to 12011
+		given(repository.findBySeqGreaterThanOrderBySeqAsc(10L, Limit.of(1000)))
+				.willReturn(List.of(change(6011L, 1L, Operation.CREATE)));
+		given(repository.findBySeqGreaterThanOrderBySeqAsc(6011L, Limit.of(1000)))
+				.willReturn(List.of(change(12_012L, 2L, Operation.CREATE)));
+		poller.poll();
+		poller.poll();
+		
+		// When
+		poller.poll();
+		
+		// Then
+		verify(repository, times(1)).findBySeqIn(argThat(seqs -> seqs.contains(11L))); // Given up on the second poll
+		verify(repository, times(2)).findBySeqIn(argThat(seqs -> seqs.contains(2011L)));
+		verify(repository, never()).findBySeqIn(argThat(seqs -> seqs.size() > 1000));
+		verify(personCache, never()).evictAll();
+		verify(personCache).evictAll(Set.of(2L));
+	}
+	
+	@Test
+	@DisplayName("Given more gaps than can be tracked when poll, then evict every cached person")
+	void testGivenTooManyGaps_whenPoll_thenEvictEverything() {
+		// Given
+		given(repository.findBySeqGreaterThanOrderBySeqAsc(10L, Limit.of(1000)))
+				.willReturn(List.of(change(50_000L, 1L, Operation.CREATE)));
+		
+		// When
+		poller.poll();
+		
+		// Then
+		verify(personCache).evictAll();
+		verify(secondLevelCache).evictEntityData(Person.class);
+		verify(nameIndex).rebuild();
+		verify(personCache, never()).evictAll(any());
+	}
+	
+	@Test
+	@DisplayName("Given more entries than retained when deleteOldEntries, then delete up to the retained window")
+	void testGivenMoreEntriesThanRetained_whenDeleteOldEntries_thenDeleteOldest() {
+		// Given
+		given(repository.findMaxSeq()).willReturn(250L);
+		
+		// When
+		poller.deleteOldEntries();
+		
+		// Then
+		verify(repository).deleteBySeqLessThanEqual(150L);
+	}
+	
+	private static PersonChangeLog change(Long seq, Long personId, Operation operation) {
+		PersonChangeLog change = new PersonChangeLog(personId, null, operation);
+		ReflectionTestUtils.setField(change, "seq", seq); // Generated by the database
+		return change;
+	}
+}
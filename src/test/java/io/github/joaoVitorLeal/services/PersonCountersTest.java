@@ -0,0 +1,92 @@
+package io.github.joaoVitorLeal.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.given;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.dto.PersonStats;
+import io.github.joaoVitorLeal.repositories.PersonCount;
+import io.github.joaoVitorLeal.repositories.PersonRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class PersonCountersTest {
+	
+	@Mock
+	private PersonRepository repository;
+	
+	private PersonCounters counters;
+	
+	private PersonDTO person0;
+	
+	@BeforeEach
+	void setup() {
+		counters = new PersonCounters(repository);
+		person0 = new PersonDTO(1L, "João", "Castro", "joaoleal98@outlook.com", "Salvador - BA - Brasil", "Male", 0L);
+		given(repository.countByGenderAndEmailDomain()).willReturn(List.of(
+				new PersonCount("Male", "outlook.com", 1L),
+				new PersonCount("Female", "gmail.com", 2L),
+				new PersonCount("male", "Gmail.com", 1L)));
+		counters.reconcile();
+	}
+	
+	@AfterEach
+	void cleanup() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+	
+	@Test
+	@DisplayName("Given aggregate counts when reconcile, then return totals with the most common domains first")
+	void testGivenAggregateCounts_whenReconcile_thenReturnTotalsWithMostCommonDomainsFirst() {
+		assertEquals(new PersonStats(4, Map.of("female", 2L, "male", 2L), Map.of("gmail.com", 3L, "outlook.com", 1L)),
+				counters.stats(10));
+		assertEquals(Map.of("gmail.com", 3L), counters.stats(1).byEmailDomain());
+	}
+	
+	@Test
+	@DisplayName("Given writes inside a transaction when changeAfterCommit, then move the counts only after commit")
+	void testGivenWritesInsideTransaction_whenChangeAfterCommit_thenMoveCountsAfterCommit() {
+		// Given
+		PersonDTO updatedPerson0 = new PersonDTO(1L, "João", "Castro", "joao@gmail.com", "Salvador - BA - Brasil", "Female", 1L);
+		PersonDTO person4 = new PersonDTO(5L, "Tânia", "Leal", "tan@hotmail.com", "Paulo Afonso - BA - Brasil", "Female", 0L);
+		TransactionSynchronizationManager.initSynchronization();
+		
+		// When
+		counters.changeAfterCommit(person0, updatedPerson0);
+		counters.changeAfterCommit(null, person4);
+		
+		// Then
+		assertEquals(Map.of("gmail.com", 3L, "outlook.com", 1L), counters.stats(10).byEmailDomain());
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		assertEquals(new PersonStats(5, Map.of("female", 4L, "male", 1L), Map.of("gmail.com", 4L, "hotmail.com", 1L)),
+				counters.stats(10));
+	}
+	
+	@Test
+	@DisplayName("Given drifted counters when reconcile, then replace them with the recounted ones")
+	void testGivenDriftedCounters_whenReconcile_thenReplaceWithRecount() {
+		// Given: a delete made by another instance
+		counters.changeAfterCommit(null, person0);
+		given(repository.countByGenderAndEmailDomain()).willReturn(List.of(new PersonCount("Female", "gmail.com", 2L)));
+		
+		// When
+		counters.reconcile();
+		
+		// Then
+		assertEquals(new PersonStats(2, Map.of("female", 2L), Map.of("gmail.com", 2L)), counters.stats(10));
+	}
+}
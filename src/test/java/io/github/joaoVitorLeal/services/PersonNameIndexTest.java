@@ -0,0 +1,93 @@
+package io.github.joaoVitorLeal.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.dto.PersonSuggestion;
+import io.github.joaoVitorLeal.repositories.PersonRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class PersonNameIndexTest {
+	
+	@Mock
+	private PersonRepository repository;
+	
+	private PersonNameIndex index;
+	
+	private PersonDTO person0;
+	private PersonDTO person1;
+	
+	@BeforeEach
+	void setup() {
+		index = new PersonNameIndex(repository);
+		person0 = new PersonDTO(1L, "João", "Castro", "joaoleal98@outlook.com", "Salvador - BA - Brasil", "Male", 0L);
+		person1 = new PersonDTO(2L, "Joana", "Leal", "joana@gmail.com", "Recife - PE - Brasil", "Female", 0L);
+		given(repository.streamAll()).willReturn(Stream.of(person0, person1));
+		index.rebuild();
+	}
+	
+	@AfterEach
+	void cleanup() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+	
+	@Test
+	@DisplayName("Given prefix of first names when suggest, then match ignoring case and accents, once per person")
+	void testGivenPrefix_whenSuggest_thenMatchIgnoringCaseAndAccents() {
+		assertEquals(List.of(new PersonSuggestion(2L, "Joana", "Leal"), new PersonSuggestion(1L, "João", "Castro")),
+				index.suggest("JOA", 10));
+		assertEquals(List.of(new PersonSuggestion(1L, "João", "Castro")), index.suggest("joão  c", 10));
+		assertEquals(List.of(new PersonSuggestion(1L, "João", "Castro")), index.suggest("cas", 10));
+		assertEquals(1, index.suggest("jo", 1).size());
+		assertTrue(index.suggest("x", 10).isEmpty());
+	}
+	
+	@Test
+	@DisplayName("Given write inside a transaction when putAfterCommit, then index the new names only after commit")
+	void testGivenWriteInTransaction_whenPutAfterCommit_thenIndexAfterCommit() {
+		// Given
+		TransactionSynchronizationManager.initSynchronization();
+		
+		// When
+		index.putAfterCommit(new PersonDTO(1L, "Carlos", "Castro", "joaoleal98@outlook.com", "Salvador - BA - Brasil", "Male", 1L));
+		
+		// Then
+		assertEquals(1, index.suggest("joão", 10).size());
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		assertTrue(index.suggest("joão", 10).isEmpty());
+		assertEquals(List.of(new PersonSuggestion(1L, "Carlos", "Castro")), index.suggest("carl", 10));
+	}
+	
+	@Test
+	@DisplayName("Given persons written elsewhere when refresh, then reload the found ones and remove the deleted ones")
+	void testGivenRemoteWrites_whenRefresh_thenReloadNames() {
+		// Given
+		given(repository.findDTOsByIdIn(Set.of(1L, 2L)))
+				.willReturn(List.of(new PersonDTO(2L, "Joana", "Mariano", "joana@gmail.com", "Recife - PE - Brasil", "Female", 1L)));
+		
+		// When
+		index.refresh(Set.of(1L, 2L));
+		
+		// Then
+		assertEquals(List.of(new PersonSuggestion(2L, "Joana", "Mariano")), index.suggest("jo", 10));
+		assertTrue(index.suggest("leal", 10).isEmpty());
+	}
+}
@@ -2,22 +2,34 @@ package io.github.joaoVitorLeal.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.ConstraintViolationException.ConstraintKind;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
@@ -25,11 +37,28 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 
+import io.github.joaoVitorLeal.dto.PersonBatchResult;
+import io.github.joaoVitorLeal.dto.PersonDTO;
+import io.github.joaoVitorLeal.dto.PersonFilter;
+import io.github.joaoVitorLeal.dto.PersonLookup;
+import io.github.joaoVitorLeal.dto.PersonPage;
+import io.github.joaoVitorLeal.dto.PersonStats;
+import io.github.joaoVitorLeal.dto.PersonSuggestion;
 import io.github.joaoVitorLeal.exceptions.DuplicateRegistrationException;
+import io.github.joaoVitorLeal.exceptions.InvalidRequestException;
+import io.github.joaoVitorLeal.exceptions.PreconditionFailedException;
+import io.github.joaoVitorLeal.exceptions.ResourceNotFoundException;
 import io.github.joaoVitorLeal.model.Person;
 import io.github.joaoVitorLeal.repositories.PersonRepository;
+import io.github.joaoVitorLeal.repositories.PersonSort;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 
 @ExtendWith(MockitoExtension.class)
 public class PersonServiceTest {
@@ -37,6 +66,21 @@ public class PersonServiceTest {
 	@Mock
 	private PersonRepository repository;
 	
+	@Mock
+	private PersonChangeTracker changeTracker;
+	
+	@Mock
+	private PersonCache personCache;
+	
+	@Mock
+	private PersonNameIndex nameIndex;
+	
+	@Mock
+	private PersonCounters counters;
+	
+	@Spy
+	private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+	
 	@InjectMocks
 	private PersonService service; // Aqui será injetado o Mock de PersonRepository
 	
@@ -52,15 +96,16 @@ public class PersonServiceTest {
 	@DisplayName("Should return Person object when save the same Person")
 	void shouldReturnPersonObject_whenSavePerson() {
 		// Given
-		given(repository.findByEmail(anyString())).willReturn(Optional.empty()); // when(repository.findByEmail(anyString())).thenReturn(Optional.empty());
-		given(repository.save(person0)).willReturn(person0);
+		given(repository.saveAndFlush(person0)).willReturn(person0);
 		
 		// When
-		Person savedPerson = service.create(person0);
+		PersonDTO savedPerson = service.create(person0);
 		
 		// Then
 		assertNotNull(savedPerson);
-		assertEquals("João", savedPerson.getFirstName());
+		assertEquals("João", savedPerson.firstName());
+		verify(repository, never()).findByEmail(anyString()); // The unique index replaces the pre-check
+		verify(changeTracker, times(1)).created(person0);
 	}
 	
 	@Disabled("DIDATIC MODEL OF THROWABLE EXCEPTIONS")
@@ -85,10 +130,10 @@ public class PersonServiceTest {
 	}
 	
 	@Test
-	@DisplayName("Should throw DuplicateRegistrationException and never call save when creating Person with existing email")
-	void shouldThrowDuplicateRegistrationException_andNeverCallSave_whenCreatingPersonWithExistingEmail() {
+	@DisplayName("Should throw DuplicateRegistrationException when the unique email index rejects the insert")
+	void shouldThrowDuplicateRegistrationException_whenUniqueEmailIndexRejectsInsert() {
 		// Given
-		given(repository.findByEmail(anyString())).willReturn(Optional.of(person0));
+		given(repository.saveAndFlush(person0)).willThrow(uniqueEmailViolation());
 		
 		// When / Then
 		assertThrows(DuplicateRegistrationException.class, () -> {
@@ -96,7 +141,8 @@ public class PersonServiceTest {
 		});
 		
 		// And
-		verify(repository, never()).save(any(Person.class));
+		verify(repository, never()).findByEmail(anyString());
+		verify(changeTracker, never()).created(any(Person.class));
 	}
 	
 	@Test
@@ -104,7 +150,7 @@ public class PersonServiceTest {
 	void testCreatePerson_whenThrowDuplicatedRegistrationException_ThenReturnCorrectMessage() {
 		
 		// Given
-		when(repository.findByEmail("joaoleal98@outlook.com")).thenReturn(Optional.of(person0));
+		when(repository.saveAndFlush(person0)).thenThrow(uniqueEmailViolation());
 		String expectedMessage = "Person already exist with given email: " + person0.getEmail();
 		
 		// When / Then
@@ -116,33 +162,383 @@ public class PersonServiceTest {
 		assertEquals(expectedMessage, exception.getMessage(), () -> "Unexpected exception message!");
 	}
 	
+	@Test
+	@DisplayName("Should rethrow integrity violations other than the unique email index unchanged")
+	void shouldRethrowOtherIntegrityViolations_whenCreatePerson() {
+		// Given
+		DataIntegrityViolationException notNullViolation = new DataIntegrityViolationException("could not execute statement",
+				new ConstraintViolationException("Column 'gender' cannot be null", new SQLException(), null, ConstraintKind.OTHER, null));
+		given(repository.saveAndFlush(person0)).willThrow(notNullViolation);
+		
+		// When / Then
+		assertEquals(notNullViolation, assertThrows(DataIntegrityViolationException.class, () -> service.create(person0)));
+	}
+	
+	@Test
+	@DisplayName("Given email registered by another person when update, then throw DuplicateRegistrationException")
+	void testGivenEmailOfAnotherPerson_whenUpdate_thenThrowDuplicateRegistrationException() {
+		// Given
+		person0.setId(1L);
+		given(repository.updateById(any(Person.class), isNull())).willThrow(new DuplicateKeyException("Duplicate entry for key 'person.email'"));
+		
+		// When / Then
+		assertThrows(DuplicateRegistrationException.class, () -> service.update(person0));
+	}
+	
+	private static DataIntegrityViolationException uniqueEmailViolation() {
+		return new DataIntegrityViolationException("could not execute statement",
+				new ConstraintViolationException("Duplicate entry for key 'person.email'", new SQLException(), null, ConstraintKind.UNIQUE, "person.email"));
+	}
+	
+	@Test
+	@DisplayName("Given batch with existing and repeated emails when createAll, then insert only the new persons and report conflicts")
+	void testGivenBatchWithDuplicatedEmails_whenCreateAll_thenInsertNewPersonsAndReportConflicts() {
+		// Given
+		Person person1 = new Person("Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female");
+		Person person2 = new Person("Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female");
+		given(repository.findExistingEmails(List.of(person0.getEmail(), person1.getEmail())))
+			.willReturn(Set.of(person0.getEmail()));
+		given(repository.batchInsert(List.of(person1))).willAnswer(invocation -> {
+			person1.setId(7L);
+			return invocation.getArgument(0);
+		});
+		
+		// When
+		List<PersonBatchResult> results = service.createAll(List.of(person0, person1, person2));
+		
+		// Then
+		assertEquals(3, results.size());
+		assertEquals(PersonBatchResult.Status.CONFLICT, results.get(0).status());
+		assertEquals(PersonBatchResult.created(1, 7L, "manuarq@gmail.com"), results.get(1));
+		assertEquals(PersonBatchResult.Status.CONFLICT, results.get(2).status());
+		verify(repository, times(1)).batchInsert(List.of(person1));
+		verify(changeTracker, times(1)).createdAll(List.of(7L));
+	}
+	
+	@Test
+	@DisplayName("Given batch with emails differing only in case when createAll, then report them as conflicts")
+	void testGivenBatchWithMixedCaseDuplicatedEmails_whenCreateAll_thenReportConflicts() {
+		// Given
+		Person person1 = new Person("Manuela", "Mariano", "Manuarq@Gmail.com", "Belo Horizonte - MG - Brasil", "Female");
+		Person person2 = new Person("Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female");
+		person0.setEmail("JoaoLeal98@outlook.com");
+		given(repository.findExistingEmails(List.of("joaoleal98@outlook.com", "manuarq@gmail.com")))
+			.willReturn(Set.of("joaoLeal98@Outlook.com")); // As stored, the collation ignores case
+		given(repository.batchInsert(List.of(person1))).willAnswer(invocation -> {
+			person1.setId(7L);
+			return invocation.getArgument(0);
+		});
+		
+		// When
+		List<PersonBatchResult> results = service.createAll(List.of(person0, person1, person2));
+		
+		// Then
+		assertEquals(PersonBatchResult.Status.CONFLICT, results.get(0).status());
+		assertEquals(PersonBatchResult.created(1, 7L, "Manuarq@Gmail.com"), results.get(1));
+		assertEquals(PersonBatchResult.Status.CONFLICT, results.get(2).status());
+		verify(repository, times(1)).batchInsert(List.of(person1));
+	}
+	
+	@Test
+	@DisplayName("Given batch larger than the maximum when createAll, then throw InvalidRequestException")
+	void testGivenOversizedBatch_whenCreateAll_thenThrowInvalidRequestException() {
+		List<Person> persons = Collections.nCopies(PersonService.MAX_BATCH_SIZE + 1, person0);
+		
+		assertThrows(InvalidRequestException.class, () -> service.createAll(persons));
+		verify(repository, never()).batchInsert(any());
+	}
+	
+	@Test
+	@DisplayName("Given persons when upsertAllByEmail, then delegate to the native upsert of the repository")
+	void testGivenPersons_whenUpsertAllByEmail_thenDelegateToRepositoryUpsert() {
+		// Given
+		List<Person> persons = List.of(person0);
+		given(repository.upsertAllByEmail(persons)).willReturn(1);
+		
+		// When
+		service.upsertAllByEmail(persons);
+		
+		// Then
+		verify(repository, times(1)).upsertAllByEmail(persons);
+		verify(repository, never()).findByEmail(anyString());
+		verify(changeTracker, times(1)).upsertedAll(List.of(person0.getEmail()));
+		verify(personCache, times(1)).evictEmailsAfterCommit(List.of(person0.getEmail()));
+	}
+	
 	@Test
 	@DisplayName("Given empty persons list when findAll persons, then return an empty persons list")
 	void testGivenEmptyPersonsList_whenFindAllPersons_thenReturnEmptyPersonsList() {
 	    // Given
-	    given(repository.findAll()).willReturn(Collections.emptyList());
+	    given(repository.findDTOsByIdGreaterThan(anyLong(), any(Limit.class))).willReturn(Collections.emptyList());
 	    
 	    // When
-	    List<Person> persons = service.findAll();
+	    List<PersonDTO> persons = service.findAll();
 	    
 	    // Then
 	    assertTrue(persons.isEmpty());
 	    assertEquals(0, persons.size());
 	}
 
+	@Test
+	@DisplayName("Given more rows than the limit when findPage, then return the page and a cursor after its last id")
+	void testGivenMoreRowsThanLimit_whenFindPage_thenReturnPageWithNextCursor() {
+		// Given
+		PersonDTO person1 = new PersonDTO(1L, "João", "Castro", "joaoleal98@outlook.com", "Salvador - BA - Brasil", "Male", 0L);
+		PersonDTO person2 = new PersonDTO(2L, "Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female", 0L);
+		given(repository.findDTOsByIdGreaterThan(0L, Limit.of(2))).willReturn(List.of(person1, person2));
+		
+		// When
+		PersonPage<PersonDTO> firstPage = service.findPage(null, 1);
+		
+		// Then
+		assertEquals(List.of(person1), firstPage.content());
+		assertNotNull(firstPage.nextCursor());
+		
+		// And the cursor resumes right after the last returned id
+		given(repository.findDTOsByIdGreaterThan(1L, Limit.of(2))).willReturn(List.of(person2));
+		PersonPage<PersonDTO> secondPage = service.findPage(firstPage.nextCursor(), 1);
+		
+		assertEquals(List.of(person2), secondPage.content());
+		assertNull(secondPage.nextCursor());
+	}
+	
+	@Test
+	@DisplayName("Given limit above the maximum when findPage, then clamp it to MAX_PAGE_SIZE")
+	void testGivenLimitAboveMaximum_whenFindPage_thenClampLimit() {
+		// Given
+		given(repository.findDTOsByIdGreaterThan(0L, Limit.of(PersonService.MAX_PAGE_SIZE + 1)))
+			.willReturn(Collections.emptyList());
+		
+		// When
+		PersonPage<PersonDTO> page = service.findPage(null, Integer.MAX_VALUE);
+		
+		// Then
+		assertTrue(page.content().isEmpty());
+		assertNull(page.nextCursor());
+	}
+	
+	@Test
+	@DisplayName("Given malformed cursor when findPage, then throw InvalidRequestException")
+	void testGivenMalformedCursor_whenFindPage_thenThrowInvalidRequestException() {
+		assertThrows(InvalidRequestException.class, () -> service.findPage("not-a-cursor", 10));
+		assertThrows(InvalidRequestException.class, () -> service.findPage(null, 0));
+		verify(repository, never()).findDTOsByIdGreaterThan(anyLong(), any(Limit.class));
+	}
+	
+	@Test
+	@DisplayName("Given fields when findPage, then select id plus the requested fields and build the cursor from the id")
+	void testGivenFields_whenFindPage_thenSelectOnlyRequestedFields() {
+		// Given
+		List<String> selected = List.of("id", "firstName", "lastName");
+		given(repository.findFieldsByIdGreaterThan(selected, 0L, 2)).willReturn(List.of(
+				Map.of("id", 1L, "firstName", "João", "lastName", "Castro"),
+				Map.of("id", 2L, "firstName", "Manuela", "lastName", "Mariano")));
+		
+		// When
+		PersonPage<Map<String, Object>> page = service.findPage(null, 1, "firstName, lastName,firstName");
+		
+		// Then
+		assertEquals(1, page.content().size());
+		assertEquals(PersonCursor.encode(1L), page.nextCursor());
+		verify(repository, never()).findDTOsByIdGreaterThan(anyLong(), any(Limit.class));
+	}
+	
+	@Test
+	@DisplayName("Given query and more matches than the limit when search, then return the best matches and the offset of the next page")
+	void testGivenMoreMatchesThanLimit_whenSearch_thenReturnPageWithOffsetCursor() {
+		// Given
+		PersonDTO person1 = new PersonDTO(1L, "João", "Castro", "joaoleal98@outlook.com", "Salvador - BA - Brasil", "Male", 0L);
+		PersonDTO person2 = new PersonDTO(2L, "Manuela", "Castro", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female", 0L);
+		given(repository.search("castro", 1, 2)).willReturn(List.of(person1, person2));
+		
+		// When
+		PersonPage<PersonDTO> page = service.search("  castro ", PersonCursor.encodeOffset(1), 1);
+		
+		// Then
+		assertEquals(List.of(person1), page.content());
+		assertEquals(PersonCursor.encodeOffset(2), page.nextCursor());
+	}
+	
+	@Test
+	@DisplayName("Given blank query, keyset cursor or offset past the cap when search, then throw InvalidRequestException without querying")
+	void testGivenInvalidSearch_whenSearch_thenThrowInvalidRequestException() {
+		assertThrows(InvalidRequestException.class, () -> service.search(" ", null, 10));
+		assertThrows(InvalidRequestException.class, () -> service.search("castro", PersonCursor.encode(1L), 10));
+		assertThrows(InvalidRequestException.class,
+				() -> service.search("castro", PersonCursor.encodeOffset(PersonService.MAX_SEARCH_RESULTS), 10));
+		verify(repository, never()).search(anyString(), anyInt(), anyInt());
+	}
+	
+	@Test
+	@DisplayName("Given last reachable page when search, then return no next cursor")
+	void testGivenLastReachablePage_whenSearch_thenReturnNoNextCursor() {
+		// Given
+		PersonDTO person1 = new PersonDTO(1L, "João", "Castro", "joaoleal98@outlook.com", "Salvador - BA - Brasil", "Male", 0L);
+		PersonDTO person2 = new PersonDTO(2L, "Manuela", "Castro", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female", 0L);
+		int offset = PersonService.MAX_SEARCH_RESULTS - 1;
+		given(repository.search("castro", offset, 2)).willReturn(List.of(person1, person2));
+		
+		// When
+		PersonPage<PersonDTO> page = service.search("castro", PersonCursor.encodeOffset(offset), 1);
+		
+		// Then
+		assertEquals(List.of(person1), page.content());
+		assertNull(page.nextCursor());
+	}
+	
+	@Test
+	@DisplayName("Given filter and sort by last name when findPage, then continue after the last name and id of the page")
+	void testGivenFilterAndSort_whenFindPage_thenReturnKeyCursor() {
+		// Given
+		PersonFilter filter = new PersonFilter("Female", null, "Ma", null);
+		PersonSort byLastName = new PersonSort("lastName", true);
+		PersonDTO person1 = new PersonDTO(2L, "Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female", 0L);
+		PersonDTO person2 = new PersonDTO(5L, "Maria", "Leal", "maria@gmail.com", "Recife - PE - Brasil", "Female", 0L);
+		given(repository.findDTOsByFilter(filter, byLastName, null, null, 2)).willReturn(List.of(person1, person2));
+		given(repository.findDTOsByFilter(filter, byLastName, "Mariano", 2L, 2)).willReturn(List.of(person2));
+		
+		// When
+		PersonPage<PersonDTO> firstPage = service.findPage(filter, "-lastName", null, 1);
+		PersonPage<PersonDTO> nextPage = service.findPage(filter, "-lastName", firstPage.nextCursor(), 1);
+		
+		// Then
+		assertEquals(List.of(person1), firstPage.content());
+		assertEquals(List.of(person2), nextPage.content());
+		assertNull(nextPage.nextCursor());
+	}
+	
+	@Test
+	@DisplayName("Given unknown sort field or cursor of another sort when findPage, then throw InvalidRequestException")
+	void testGivenUnknownSortOrForeignCursor_whenFindPage_thenThrowInvalidRequestException() {
+		PersonFilter filter = new PersonFilter("Female", null, null, null);
+		String lastNameCursor = PersonCursor.encodeKey("lastName", "Mariano", 2L);
+		
+		assertThrows(InvalidRequestException.class, () -> service.findPage(filter, "email", null, 10));
+		assertThrows(InvalidRequestException.class, () -> service.findPage(filter, "firstName", lastNameCursor, 10));
+		verify(repository, never()).findDTOsByFilter(any(), any(), any(), any(), anyInt());
+	}
+	
+	@Test
+	@DisplayName("Given unknown field when findById with fields, then throw InvalidRequestException")
+	void testGivenUnknownField_whenFindByIdWithFields_thenThrowInvalidRequestException() {
+		assertThrows(InvalidRequestException.class, () -> service.findById(1L, "firstName,version"));
+		verify(repository, never()).findFieldsById(any(), anyLong());
+	}
+	
+	@Test
+	@DisplayName("Given limit above the maximum when suggest, then cap it and answer from the name index")
+	void testGivenLimitAboveMaximum_whenSuggest_thenCapLimitAndUseNameIndex() {
+		// Given
+		List<PersonSuggestion> suggestions = List.of(new PersonSuggestion(1L, "João", "Castro"));
+		given(nameIndex.suggest("jo", PersonService.MAX_SUGGESTIONS)).willReturn(suggestions);
+		
+		// When / Then
+		assertEquals(suggestions, service.suggest("jo", 1000));
+		assertThrows(InvalidRequestException.class, () -> service.suggest("jo", 0));
+	}
+	
+	@Test
+	@DisplayName("Given persons when exportAll, then hand every person to the consumer in order")
+	void testGivenPersons_whenExportAll_thenConsumeEveryPerson() {
+		// Given
+		PersonDTO person1 = new PersonDTO(1L, "João", "Castro", "joaoleal98@outlook.com", "Salvador - BA - Brasil", "Male", 0L);
+		PersonDTO person2 = new PersonDTO(2L, "Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female", 0L);
+		given(repository.streamAll()).willReturn(Stream.of(person1, person2));
+		List<PersonDTO> exported = new ArrayList<>();
+		
+		// When
+		service.exportAll(exported::add);
+		
+		// Then
+		assertEquals(List.of(person1, person2), exported);
+	}
+	
 	@Test
 	@DisplayName("Given personId when findById() is called, then return the same person")
 	void testGivenPersonId_whenFindById_thenReturnPersonObject() {
 		
 		// Given 
-		given(repository.findById(anyLong())).willReturn(Optional.of(person0));
+		given(personCache.findById(anyLong())).willReturn(PersonMapper.toDTO(person0));
 
 		// When
-		Person savedPerson = service.findById(1L); 
+		PersonDTO savedPerson = service.findById(1L); 
 		
 		// Then
 		assertNotNull(savedPerson);
-		assertEquals("João", savedPerson.getFirstName());
+		assertEquals("João", savedPerson.firstName());
+		verify(repository, never()).findById(anyLong()); // Loaded by the cache on a miss
+	}
+	
+	@Test
+	@DisplayName("Given email when findByEmail() is called, then return the cached person")
+	void testGivenEmail_whenFindByEmail_thenReturnPersonObject() {
+		
+		// Given 
+		PersonDTO cachedPerson = PersonMapper.toDTO(person0);
+		given(personCache.findByEmail("joaoleal98@outlook.com")).willReturn(cachedPerson);
+		
+		// When / Then
+		assertEquals(cachedPerson, service.findByEmail("joaoleal98@outlook.com"));
+		assertThrows(ResourceNotFoundException.class, () -> service.findByEmail("unknown@gmail.com"));
+	}
+	
+	@Test
+	@DisplayName("Given ids when findAllById() is called, then return the persons in request order and the missing ids")
+	void testGivenIds_whenFindAllById_thenReturnPersonsInRequestOrderAndMissingIds() {
+		// Given
+		PersonDTO cachedPerson0 = PersonMapper.toDTO(person0);
+		PersonDTO cachedPerson1 = new PersonDTO(2L, "Manuela", "Mariano", "manuarq@gmail.com", "Belo Horizonte - MG - Brasil", "Female", 0L);
+		given(personCache.findAllById(Set.of(1L, 2L, 99L))).willReturn(Map.of(1L, cachedPerson0, 2L, cachedPerson1));
+		
+		// When
+		PersonLookup lookup = service.findAllById(List.of(2L, 99L, 1L, 2L));
+		
+		// Then
+		assertEquals(List.of(cachedPerson1, cachedPerson0), lookup.content());
+		assertEquals(List.of(99L), lookup.missing());
+	}
+	
+	@Test
+	@DisplayName("Given no ids or too many ids when findAllById() is called, then throw InvalidRequestException")
+	void testGivenNoIdsOrTooManyIds_whenFindAllById_thenThrowInvalidRequestException() {
+		List<Long> tooManyIds = new ArrayList<>();
+		for (long id = 1; id <= PersonService.MAX_LOOKUP_IDS + 1; id++) {
+			tooManyIds.add(id);
+		}
+		
+		assertThrows(InvalidRequestException.class, () -> service.findAllById(List.of()));
+		assertThrows(InvalidRequestException.class, () -> service.findAllById(tooManyIds));
+		verify(personCache, never()).findAllById(any());
+	}
+	
+	@Test
+	@DisplayName("Given number of domains when findStats() is called, then return the counters capped at the maximum")
+	void testGivenNumberOfDomains_whenFindStats_thenReturnCountersCapped() {
+		// Given
+		PersonStats stats = new PersonStats(2, Map.of("Male", 2L), Map.of("outlook.com", 2L));
+		given(counters.stats(PersonService.MAX_STATS_DOMAINS)).willReturn(stats);
+		
+		// When / Then
+		assertEquals(stats, service.findStats(Integer.MAX_VALUE));
+		assertThrows(InvalidRequestException.class, () -> service.findStats(0));
+	}
+	
+	@Test
+	@DisplayName("Given personId when findVersionById, then return the version of the (cached) person")
+	void testGivenPersonId_whenFindVersionById_thenReturnVersion() {
+		// Given
+		person0.setVersion(3L);
+		given(personCache.findById(1L)).willReturn(PersonMapper.toDTO(person0));
+		
+		// When / Then
+		assertEquals(3L, service.findVersionById(1L));
+	}
+	
+	@Test
+	@DisplayName("Given unexistent personId when findVersionById, then throw ResourceNotFoundException")
+	void testGivenUnexistentPersonId_whenFindVersionById_thenThrowResourceNotFoundException() {
+		// When / Then
+		assertThrows(ResourceNotFoundException.class, () -> service.findVersionById(99L));
 	}
 	
 	@Test
@@ -150,52 +546,306 @@ public class PersonServiceTest {
 	void testGivenPersonObject_whenUpdate_thenReturnUpdatedPersonObject() {
 		
 		// Given 
-		person0.setId(1L);
-		given(repository.findById(anyLong())).willReturn(Optional.of(person0));
+		given(repository.updateById(any(Person.class), isNull())).willReturn(1);
 		
+		person0.setId(1L);
 		person0.setFirstName("Carlos");
 		person0.setEmail("carloslealurb@gmail.com");
 		
-		given(repository.save(person0)).willReturn(person0);
-		
 		// When
-		Person updatedPerson = service.update(person0); 
+		PersonDTO updatedPerson = service.update(person0); 
 		
 		// Then
 		assertNotNull(updatedPerson);
-		assertEquals("Carlos", updatedPerson.getFirstName());
-		assertEquals("carloslealurb@gmail.com", updatedPerson.getEmail());
+		assertEquals("Carlos", updatedPerson.firstName());
+		assertEquals("carloslealurb@gmail.com", updatedPerson.email());
+		assertEquals("Castro", updatedPerson.lastName());
+		assertNull(updatedPerson.version()); // Unconditional: the version written is not known without reading it
+		verify(repository, never()).findDTOById(anyLong()); // One statement, no SELECT
+		verify(changeTracker, times(1)).updated(1L);
+		verify(personCache, times(1)).evictAfterCommit(1L, "carloslealurb@gmail.com");
+		verify(nameIndex, times(1)).putAfterCommit(updatedPerson);
+		verify(counters, never()).changeAfterCommit(any(), any()); // Left to the reconciliation
+	}
+	
+	@Test
+	@DisplayName("Given cached person when update, then evict the email it was cached under too")
+	void testGivenCachedPerson_whenUpdate_thenEvictPreviousEmail() {
+		
+		// Given 
+		given(personCache.findCachedById(1L)).willReturn(cachedPerson0(0L));
+		given(repository.updateById(any(Person.class), isNull())).willReturn(1);
+		person0.setId(1L);
+		person0.setEmail("carloslealurb@gmail.com");
+		
+		// When
+		service.update(person0); 
+		
+		// Then
+		verify(personCache, times(1)).evictAfterCommit(1L, "joaoleal98@outlook.com", "carloslealurb@gmail.com");
+	}
+	
+	@Test
+	@DisplayName("Given unexistent personId when update, then throw ResourceNotFoundException")
+	void testGivenUnexistentPersonId_whenUpdate_thenThrowResourceNotFoundException() {
+		
+		// Given 
+		person0.setId(99L);
+		given(repository.updateById(any(Person.class), isNull())).willReturn(0);
+		
+		// When / Then
+		ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> service.update(person0));
+		assertEquals("No records found for this id: 99", exception.getMessage());
+		verify(repository, never()).findDTOById(anyLong());
+		verify(changeTracker, never()).updated(anyLong());
+	}
+	
+	@Test
+	@DisplayName("Given person without id when update, then throw ResourceNotFoundException")
+	void testGivenPersonWithoutId_whenUpdate_thenThrowResourceNotFoundException() {
+		
+		// When / Then
+		assertThrows(ResourceNotFoundException.class, () -> service.update(person0));
+		verify(personCache, never()).findCachedById(any());
+		verify(repository, never()).updateById(any(Person.class), any());
+	}
+	
+	@Test
+	@DisplayName("Given concurrent update of the same person when unconditional update, then overwrite it")
+	void testGivenConcurrentUpdate_whenUnconditionalUpdate_thenOverwritePerson() {
+		
+		// Given: the cached person is two versions behind, another request updated the row in between
+		given(personCache.findCachedById(1L)).willReturn(cachedPerson0(0L));
+		given(repository.updateById(any(Person.class), isNull())).willReturn(1); // "where id = ?" still matches
+		person0.setId(1L);
+		person0.setAddress("Recife - PE - Brasil");
+		
+		// When
+		PersonDTO updatedPerson = service.update(person0); 
 		
+		// Then
+		assertEquals("Recife - PE - Brasil", updatedPerson.address());
+		verify(repository, times(1)).updateById(any(Person.class), isNull()); // No version predicate, no retry
+		verify(repository, never()).findDTOById(anyLong());
+		verify(changeTracker, times(1)).updated(1L);
+		verify(counters, never()).changeAfterCommit(any(), any()); // The cached person may not be the replaced row
 	}
 	
 	@Test
-	@DisplayName("Given personId when delete Person, then do nothing")
-	void testGivenPersonId_whenDelete_thenDoNothing() {
+	@DisplayName("Given current version when conditional update, then update the person")
+	void testGivenCurrentVersion_whenConditionalUpdate_thenUpdatePerson() {
 		
 		// Given 
+		PersonDTO current = new PersonDTO(1L, "João", "Castro", "joaoleal98@outlook.com", "Recife - PE - Brasil", "Male", 3L);
+		given(personCache.findCachedById(1L)).willReturn(current);
+		given(repository.updateById(any(Person.class), eq(3L))).willReturn(1);
 		person0.setId(1L);
-		given(repository.findById(anyLong())).willReturn(Optional.of(person0));
-		willDoNothing().given(repository).delete(person0);; // willDoNothing -> configura o mock para não realizar nenhuma ação ao chamar delete
 		
 		// When
-		service.delete(person0.getId()); 
+		PersonDTO updatedPerson = service.update(person0, 3L); 
 		
 		// Then
-		verify(repository, times(1)).delete(person0);
+		assertEquals("Salvador - BA - Brasil", updatedPerson.address());
+		assertEquals(4L, updatedPerson.version());
+		verify(repository, never()).findDTOById(anyLong());
+		verify(changeTracker, times(1)).updated(1L);
+		verify(counters, times(1)).changeAfterCommit(current, updatedPerson);
+	}
+	
+	@Test
+	@DisplayName("Given stale version when conditional update, then throw PreconditionFailedException")
+	void testGivenStaleVersion_whenConditionalUpdate_thenThrowPreconditionFailedException() {
+		
+		// Given 
+		given(repository.updateById(any(Person.class), eq(3L))).willReturn(0);
+		given(repository.findDTOById(1L)).willReturn(Optional.of(cachedPerson0(4L)));
+		person0.setId(1L);
+		person0.setAddress("Recife - PE - Brasil");
+		
+		// When / Then
+		assertThrows(PreconditionFailedException.class, () -> service.update(person0, 3L));
+		verify(repository, times(1)).updateById(any(Person.class), anyLong()); // No retry
+		verify(changeTracker, never()).updated(anyLong());
 	}
 	
 	@Test
-	@DisplayName("Given personId when delete Person, then verify repository.delete is called")
-	void testGivenPersonId_whenDelete_thenVerifyDeleteOnRepository_isCalled() {
+	@DisplayName("Given deleted person when conditional update, then throw ResourceNotFoundException")
+	void testGivenDeletedPerson_whenConditionalUpdate_thenThrowResourceNotFoundException() {
 		
 		// Given 
+		given(repository.updateById(any(Person.class), eq(3L))).willReturn(0);
+		given(repository.findDTOById(1L)).willReturn(Optional.empty());
 		person0.setId(1L);
-		given(repository.findById(anyLong())).willReturn(Optional.of(person0));
+		
+		// When / Then
+		assertThrows(ResourceNotFoundException.class, () -> service.update(person0, 3L));
+		verify(changeTracker, never()).updated(anyLong());
+	}
+	
+	@Test
+	@DisplayName("Given merge patch with one changed field when patch, then change only that field")
+	void testGivenMergePatch_whenPatch_thenChangeOnlyPatchedField() {
+		
+		// Given 
+		PersonDTO patched = new PersonDTO(1L, "João", "Castro", "joaoleal98@outlook.com", "Recife - PE - Brasil", "Male", 4L);
+		given(personCache.findCachedById(1L)).willReturn(cachedPerson0(3L));
+		given(repository.patchById(1L, Map.of("address", "Recife - PE - Brasil"), 3L)).willReturn(1);
+		given(repository.findDTOById(1L)).willReturn(Optional.of(patched));
+		
+		// When
+		PersonDTO patchedPerson = service.patch(1L, Map.of("address", "Recife - PE - Brasil"), 3L); 
+		
+		// Then
+		assertEquals(patched, patchedPerson);
+		verify(changeTracker, times(1)).updated(1L);
+		verify(personCache, times(1)).evictAfterCommit(1L, "joaoleal98@outlook.com");
+		verify(nameIndex, times(1)).putAfterCommit(patched);
+		verify(counters, times(1)).changeAfterCommit(cachedPerson0(3L), patched);
+	}
+	
+	@Test
+	@DisplayName("Given merge patch with unchanged values when patch, then keep the version and skip the side effects")
+	void testGivenUnchangedMergePatch_whenPatch_thenKeepVersion() {
+		
+		// Given 
+		given(personCache.findCachedById(1L)).willReturn(cachedPerson0(0L));
+		given(repository.patchById(1L, Map.of("email", "joaoleal98@outlook.com"), null)).willReturn(1);
+		given(repository.findDTOById(1L)).willReturn(Optional.of(cachedPerson0(0L)));
+		
+		// When
+		PersonDTO patchedPerson = service.patch(1L, Map.of("email", "joaoleal98@outlook.com"), null); 
+		
+		// Then
+		assertEquals(0L, patchedPerson.version());
+		verify(changeTracker, never()).updated(anyLong());
+		verify(nameIndex, never()).putAfterCommit(any());
+	}
+	
+	@Test
+	@DisplayName("Given concurrent update of the same person when unconditional patch, then patch the current row")
+	void testGivenConcurrentUpdate_whenUnconditionalPatch_thenPatchCurrentRow() {
+		
+		// Given: the cached person is at version 0, another request moved the row to version 2
+		PersonDTO patched = new PersonDTO(1L, "João", "Castro", "joaoleal98@outlook.com", "Recife - PE - Brasil", "Male", 3L);
+		given(personCache.findCachedById(1L)).willReturn(cachedPerson0(0L));
+		given(repository.patchById(1L, Map.of("address", "Recife - PE - Brasil"), null)).willReturn(1);
+		given(repository.findDTOById(1L)).willReturn(Optional.of(patched));
+		
+		// When
+		PersonDTO patchedPerson = service.patch(1L, Map.of("address", "Recife - PE - Brasil"), null); 
+		
+		// Then
+		assertEquals(patched, patchedPerson);
+		verify(changeTracker, times(1)).updated(1L);
+		verify(counters, never()).changeAfterCommit(any(), any()); // The cached person is not the replaced row
+	}
+	
+	@Test
+	@DisplayName("Given unexistent personId when unconditional patch, then throw ResourceNotFoundException")
+	void testGivenUnexistentPersonId_whenPatch_thenThrowResourceNotFoundException() {
+		
+		// Given 
+		given(repository.patchById(99L, Map.of("address", "Recife - PE - Brasil"), null)).willReturn(0);
+		
+		// When / Then
+		assertThrows(ResourceNotFoundException.class, () -> service.patch(99L, Map.of("address", "Recife - PE - Brasil"), null));
+		verify(repository, never()).findDTOById(anyLong());
+	}
+	
+	@Test
+	@DisplayName("Given merge patch with null or unknown field when patch, then throw InvalidRequestException")
+	void testGivenInvalidMergePatch_whenPatch_thenThrowInvalidRequestException() {
+		
+		// Given 
+		Map<String, Object> nullPatch = new HashMap<>();
+		nullPatch.put("address", null);
+		
+		// When / Then
+		assertThrows(InvalidRequestException.class, () -> service.patch(1L, nullPatch, null));
+		assertThrows(InvalidRequestException.class, () -> service.patch(1L, Map.of("version", "7"), null));
+		verify(repository, never()).patchById(anyLong(), any(), any());
+	}
+	
+	@Test
+	@DisplayName("Given merge patch with a value breaking the constraints when patch, then throw ConstraintViolationException without writing")
+	void testGivenConstraintViolatingMergePatch_whenPatch_thenThrowWithoutWriting() {
+		
+		// Given 
+		Map<String, Object> patch = Map.of("email", "not-an-email", "firstName", " ");
+		
+		// When
+		jakarta.validation.ConstraintViolationException exception = assertThrows(
+				jakarta.validation.ConstraintViolationException.class, () -> service.patch(1L, patch, null));
+		
+		// Then
+		assertEquals(2, exception.getConstraintViolations().size());
+		verify(repository, never()).patchById(anyLong(), any(), any());
+	}
+	
+	@Test
+	@DisplayName("Given stale version when patch, then throw PreconditionFailedException")
+	void testGivenStaleVersion_whenPatch_thenThrowPreconditionFailedException() {
+		
+		// Given 
+		given(repository.patchById(1L, Map.of("address", "Recife - PE - Brasil"), 3L)).willReturn(0);
+		given(repository.findDTOById(1L)).willReturn(Optional.of(cachedPerson0(4L)));
+		
+		// When / Then
+		assertThrows(PreconditionFailedException.class, () -> service.patch(1L, Map.of("address", "Recife - PE - Brasil"), 3L));
+		verify(changeTracker, never()).updated(anyLong());
+	}
+	
+	@Test
+	@DisplayName("Given personId when delete Person, then delete it with one statement")
+	void testGivenPersonId_whenDelete_thenDeleteWithOneStatement() {
+		
+		// Given 
+		given(personCache.findCachedById(1L)).willReturn(cachedPerson0(0L));
+		given(repository.removeById(1L, null)).willReturn(1);
+		
+		// When
+		service.delete(1L); 
+		
+		// Then
+		verify(repository, times(1)).removeById(1L, null);
+		verify(repository, never()).findDTOById(anyLong());
+		verify(changeTracker, times(1)).deleted(1L);
+		verify(personCache, times(1)).evictAfterCommit(1L, "joaoleal98@outlook.com");
+		verify(counters, times(1)).changeAfterCommit(cachedPerson0(0L), null);
+		verify(nameIndex, times(1)).removeAfterCommit(1L);
+	}
+	
+	@Test
+	@DisplayName("Given concurrent update of the same person when delete Person, then delete it anyway")
+	void testGivenConcurrentUpdate_whenDelete_thenDeletePerson() {
+		
+		// Given: not cached, and updated by another request since it was read
+		given(repository.removeById(1L, null)).willReturn(1);
 		
 		// When
-		service.delete(person0.getId()); 
+		service.delete(1L); 
 		
 		// Then
-		verify(repository, times(1)).delete(person0);
+		verify(changeTracker, times(1)).deleted(1L);
+		verify(personCache, times(1)).evictAfterCommit(1L);
+		verify(counters, never()).changeAfterCommit(any(), any());
+	}
+	
+	@Test
+	@DisplayName("Given unexistent personId when delete Person, then throw ResourceNotFoundException")
+	void testGivenUnexistentPersonId_whenDelete_thenThrowResourceNotFoundException() {
+		
+		// Given 
+		given(repository.removeById(99L, null)).willReturn(0);
+		
+		// When / Then
+		assertThrows(ResourceNotFoundException.class, () -> service.delete(99L));
+		verify(repository, never()).findDTOById(anyLong());
+		verify(changeTracker, never()).deleted(anyLong());
+	}
+	
+	// person0 as served by PersonCache
+	private static PersonDTO cachedPerson0(Long version) {
+		return new PersonDTO(1L, "João", "Castro", "joaoleal98@outlook.com", "Salvador - BA - Brasil", "Male", version);
 	}
 }
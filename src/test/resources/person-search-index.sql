@@ -0,0 +1,2 @@
+-- Hibernate (ddl-auto) cannot create FULLTEXT indexes, see the person table in table-scheme.sql
+ALTER TABLE person ADD FULLTEXT INDEX person_search (first_name, last_name, email, address);